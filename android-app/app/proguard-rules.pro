@@ -23,9 +23,8 @@
 # Keep Room database classes
 -keep class com.demoody.missedcall.db.** { *; }
 
-# Keep network models
--keep class com.demoody.missedcall.network.requests.** { *; }
--keep class com.demoody.missedcall.network.responses.** { *; }
+# Network models are (de)serialized by the hand-written adapters in
+# network.json, so they need no keep rules and can be obfuscated
 
 # Retrofit
 -keepattributes Signature, InnerClasses, EnclosingMethod
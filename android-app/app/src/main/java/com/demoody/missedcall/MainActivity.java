@@ -7,7 +7,6 @@ import android.net.Uri;
 import android.os.Build;
 import android.os.Bundle;
 import android.provider.Settings;
-import android.util.Log;
 import android.view.Menu;
 import android.view.MenuItem;
 import android.widget.Toast;
@@ -18,13 +17,18 @@ import androidx.appcompat.app.AppCompatActivity;
 import androidx.core.app.ActivityCompat;
 import androidx.lifecycle.ViewModelProvider;
 
+import com.demoody.missedcall.adapters.CallHistoryAdapter;
 import com.demoody.missedcall.databinding.ActivityMainBinding;
 import com.demoody.missedcall.services.MissedCallService;
 import com.demoody.missedcall.utils.DeviceUtils;
+import com.demoody.missedcall.utils.MessageTemplate;
 import com.demoody.missedcall.utils.PermissionUtils;
 import com.demoody.missedcall.utils.PreferenceManager;
 import com.demoody.missedcall.viewmodels.MainViewModel;
 
+import java.util.ArrayList;
+import java.util.List;
+
 public class MainActivity extends AppCompatActivity {
     
     private static final String TAG = "MainActivity";
@@ -34,6 +38,7 @@ public class MainActivity extends AppCompatActivity {
     private ActivityMainBinding binding;
     private MainViewModel viewModel;
     private PreferenceManager preferenceManager;
+    private CallHistoryAdapter callHistoryAdapter;
     
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -61,6 +66,10 @@ public class MainActivity extends AppCompatActivity {
     private void setupUI() {
         setSupportActionBar(binding.toolbar);
         
+        // Recent calls list
+        callHistoryAdapter = new CallHistoryAdapter();
+        binding.recyclerCallHistory.setAdapter(callHistoryAdapter);
+        
         // Auto-responder toggle
         binding.switchAutoResponder.setOnCheckedChangeListener((buttonView, isChecked) -> {
             if (isChecked && !PermissionUtils.hasRequiredPermissions(this)) {
@@ -100,22 +109,15 @@ public class MainActivity extends AppCompatActivity {
     
     private void setupObservers() {
         // Observe call statistics
-        viewModel.getTotalCalls().observe(this, count -> {
-            binding.textTotalCalls.setText(String.valueOf(count != null ? count : 0));
-        });
-        
-        viewModel.getSentCount().observe(this, count -> {
-            binding.textSentMessages.setText(String.valueOf(count != null ? count : 0));
+        viewModel.getStats().observe(this, stats -> {
+            binding.textTotalCalls.setText(String.valueOf(stats.total));
+            binding.textSentMessages.setText(String.valueOf(stats.sent));
+            binding.textFailedMessages.setText(String.valueOf(stats.failed));
         });
         
-        viewModel.getFailedCount().observe(this, count -> {
-            binding.textFailedMessages.setText(String.valueOf(count != null ? count : 0));
-        });
-        
-        // Observe recent calls
-        viewModel.getRecentCalls().observe(this, calls -> {
-            // Update recent calls list if you have a RecyclerView
-            Log.d(TAG, "Recent calls updated: " + (calls != null ? calls.size() : 0));
+        // Observe paged call history
+        viewModel.getCallHistory().observe(this, pagingData -> {
+            callHistoryAdapter.submitData(getLifecycle(), pagingData);
         });
     }
     
@@ -166,14 +168,26 @@ public class MainActivity extends AppCompatActivity {
         if (missingPermissions.length > 0) {
             showPermissionRationaleDialog(missingPermissions);
         } else {
+            List<String> optionalPermissions = new ArrayList<>();
+            
             // Check notification permission for Android 13+
             if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.TIRAMISU) {
                 if (!PermissionUtils.hasNotificationPermission(this)) {
-                    ActivityCompat.requestPermissions(this, 
-                        new String[]{Manifest.permission.POST_NOTIFICATIONS}, 
-                        PERMISSION_REQUEST_CODE);
+                    optionalPermissions.add(Manifest.permission.POST_NOTIFICATIONS);
                 }
             }
+            
+            // Contacts are only needed to fill {name} in the message
+            if (preferenceManager.getMessageTemplate().contains(MessageTemplate.PLACEHOLDER_NAME)
+                    && !PermissionUtils.hasPermission(this, Manifest.permission.READ_CONTACTS)) {
+                optionalPermissions.add(Manifest.permission.READ_CONTACTS);
+            }
+            
+            if (!optionalPermissions.isEmpty()) {
+                ActivityCompat.requestPermissions(this, 
+                    optionalPermissions.toArray(new String[0]), 
+                    PERMISSION_REQUEST_CODE);
+            }
         }
     }
     
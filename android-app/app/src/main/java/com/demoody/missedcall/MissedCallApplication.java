@@ -4,29 +4,63 @@ import android.app.Application;
 import android.app.NotificationChannel;
 import android.app.NotificationManager;
 import android.os.Build;
+import android.util.Log;
 
+import androidx.annotation.NonNull;
 import androidx.work.Configuration;
-import androidx.work.WorkManager;
 
 import com.demoody.missedcall.db.AppDatabase;
+import com.demoody.missedcall.db.IngestionQueue;
+import com.demoody.missedcall.db.MissedCallDao;
+import com.demoody.missedcall.db.StorageProfile;
+import com.demoody.missedcall.network.ApiClient;
+import com.demoody.missedcall.network.CircuitBreaker;
+import com.demoody.missedcall.network.DeliveryPolicy;
+import com.demoody.missedcall.network.NetworkMonitor;
+import com.demoody.missedcall.services.CallLogReconciler;
+import com.demoody.missedcall.services.MissedCallIntake;
+import com.demoody.missedcall.utils.AppExecutors;
+import com.demoody.missedcall.utils.Blocklist;
+import com.demoody.missedcall.utils.CooldownCache;
+import com.demoody.missedcall.utils.DetectionLatency;
+import com.demoody.missedcall.utils.MessageTemplateCache;
+import com.demoody.missedcall.utils.PhoneNumberNormalizer;
+import com.demoody.missedcall.utils.SettingsRepository;
+import com.demoody.missedcall.workers.DispatchScheduler;
 
-public class MissedCallApplication extends Application {
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+public class MissedCallApplication extends Application implements Configuration.Provider {
     
     public static final String NOTIFICATION_CHANNEL_ID = "missed_call_service";
     public static final String NOTIFICATION_CHANNEL_NAME = "Missed Call Service";
     
-    private AppDatabase database;
+    private static final String TAG = "MissedCallApplication";
     
-    @Override
-    public void onCreate() {
-        super.onCreate();
-        
-        createNotificationChannel();
-        initializeWorkManager();
-        initializeDatabase();
-    }
+    private static final long EXECUTOR_SHUTDOWN_TIMEOUT_SECONDS = 5;
+    
+    // Built on first use. The process is usually cold-started for a single
+    // PHONE_STATE broadcast, so there is no onCreate work; the initializers
+    // in the startup package start what every process needs off the main thread
+    private volatile StorageProfile storageProfile;
+    private volatile AppExecutors executors;
+    private volatile IngestionQueue ingestionQueue;
+    private volatile MissedCallIntake missedCallIntake;
+    private volatile CallLogReconciler callLogReconciler;
+    private volatile PhoneNumberNormalizer phoneNumberNormalizer;
+    private volatile NetworkMonitor networkMonitor;
+    private final CooldownCache cooldownCache = new CooldownCache();
+    private final Blocklist blocklist = new Blocklist();
+    private final MessageTemplateCache messageTemplates = new MessageTemplateCache();
+    private final DetectionLatency detectionLatency = new DetectionLatency();
+    private final DeliveryPolicy deliveryPolicy = new DeliveryPolicy.Builder().build();
+    private final CircuitBreaker circuitBreaker = new CircuitBreaker(deliveryPolicy);
     
-    private void createNotificationChannel() {
+    /**
+     * Creates the foreground service channel. Safe to call repeatedly.
+     */
+    public void createNotificationChannel() {
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
             NotificationChannel channel = new NotificationChannel(
                 NOTIFICATION_CHANNEL_ID,
@@ -41,19 +75,183 @@ public class MissedCallApplication extends Application {
         }
     }
     
-    private void initializeWorkManager() {
-        Configuration config = new Configuration.Builder()
-            .setMinimumLoggingLevel(android.util.Log.INFO)
+    /**
+     * WorkManager initializes itself from this on first use instead of at
+     * process start.
+     */
+    @NonNull
+    @Override
+    public Configuration getWorkManagerConfiguration() {
+        return new Configuration.Builder()
+            .setMinimumLoggingLevel(Log.INFO)
+            .setExecutor(getExecutors().networkIO())
             .build();
+    }
+    
+    /**
+     * Opens the database and loads the in-memory caches. Called once on the
+     * disk I/O pool by {@code DatabaseInitializer}.
+     */
+    public void warmUpStorage() {
+        AppDatabase database = getDatabase();
+        
+        // Opening runs any pending migration and the connection PRAGMAs now,
+        // instead of inside the first call's insert
+        database.getOpenHelper().getWritableDatabase();
         
-        WorkManager.initialize(this, config);
+        // Load recent callers so repeat calls can be rejected without a query
+        long since = System.currentTimeMillis() - SettingsRepository.getInstance(this).get().cooldownMillis;
+        cooldownCache.warm(database.missedCallDao().getRecentCallers(since));
+        blocklist.load(database.blockedNumberDao());
+    }
+    
+    /**
+     * Builds the HTTP client, registers the JSON adapters and obtains a
+     * token before the first send needs them. Blocking.
+     */
+    public void warmUpApiClient() {
+        try {
+            ApiClient.getInstance(this).getTokenManager().ensureToken();
+        } catch (IOException e) {
+            // Retried by the worker before its first send
+            Log.w(TAG, "Device registration deferred", e);
+        }
     }
     
-    private void initializeDatabase() {
-        database = AppDatabase.getInstance(this);
+    public StorageProfile getStorageProfile() {
+        if (storageProfile == null) {
+            synchronized (this) {
+                if (storageProfile == null) {
+                    storageProfile = StorageProfile.forDevice(this);
+                }
+            }
+        }
+        return storageProfile;
+    }
+    
+    public AppExecutors getExecutors() {
+        if (executors == null) {
+            synchronized (this) {
+                if (executors == null) {
+                    executors = new AppExecutors(getStorageProfile().getQueryThreads());
+                }
+            }
+        }
+        return executors;
     }
     
     public AppDatabase getDatabase() {
-        return database;
+        return AppDatabase.getInstance(this);
+    }
+    
+    public IngestionQueue getIngestionQueue() {
+        if (ingestionQueue == null) {
+            // Resolved outside the lock: AppDatabase.getInstance calls back into
+            // this object while holding its own lock
+            MissedCallDao missedCallDao = getDatabase().missedCallDao();
+            synchronized (this) {
+                if (ingestionQueue == null) {
+                    ingestionQueue = new IngestionQueue(
+                        missedCallDao,
+                        getExecutors().diskIO(),
+                        insertedCount -> DispatchScheduler.scheduleNext(this)
+                    );
+                }
+            }
+        }
+        return ingestionQueue;
+    }
+    
+    public MissedCallIntake getMissedCallIntake() {
+        if (missedCallIntake == null) {
+            synchronized (this) {
+                if (missedCallIntake == null) {
+                    missedCallIntake = new MissedCallIntake(this);
+                }
+            }
+        }
+        return missedCallIntake;
+    }
+    
+    public CallLogReconciler getCallLogReconciler() {
+        if (callLogReconciler == null) {
+            synchronized (this) {
+                if (callLogReconciler == null) {
+                    callLogReconciler = new CallLogReconciler(this);
+                }
+            }
+        }
+        return callLogReconciler;
+    }
+    
+    public CooldownCache getCooldownCache() {
+        return cooldownCache;
+    }
+    
+    public Blocklist getBlocklist() {
+        return blocklist;
+    }
+    
+    /**
+     * The monitor is started when first created, which reads the settings
+     * and registers a network callback; {@code NetworkInitializer} does that
+     * on the network pool at process start so its state is current when a
+     * worker asks.
+     */
+    public NetworkMonitor getNetworkMonitor() {
+        if (networkMonitor == null) {
+            synchronized (this) {
+                if (networkMonitor == null) {
+                    NetworkMonitor monitor = new NetworkMonitor(this, SettingsRepository.getInstance(this), () ->
+                        getExecutors().diskIO().execute(() -> {
+                            // Rows held for an open breaker were waiting on this network; send them now
+                            long now = System.currentTimeMillis();
+                            long heldUntil = circuitBreaker.onNetworkRestored(now);
+                            if (heldUntil > now) {
+                                getDatabase().missedCallDao().releaseHeldCalls(heldUntil, now);
+                            }
+                            DispatchScheduler.scheduleNext(this);
+                        }));
+                    monitor.start();
+                    networkMonitor = monitor;
+                }
+            }
+        }
+        return networkMonitor;
+    }
+    
+    public DeliveryPolicy getDeliveryPolicy() {
+        return deliveryPolicy;
+    }
+    
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+    
+    public MessageTemplateCache getMessageTemplates() {
+        return messageTemplates;
+    }
+    
+    public DetectionLatency getDetectionLatency() {
+        return detectionLatency;
+    }
+    
+    public PhoneNumberNormalizer getPhoneNumberNormalizer() {
+        if (phoneNumberNormalizer == null) {
+            synchronized (this) {
+                if (phoneNumberNormalizer == null) {
+                    phoneNumberNormalizer = new PhoneNumberNormalizer(this);
+                }
+            }
+        }
+        return phoneNumberNormalizer;
+    }
+    
+    @Override
+    public void onTerminate() {
+        if (executors != null) {
+            executors.shutdown(EXECUTOR_SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        }
+        super.onTerminate();
     }
 }
\ No newline at end of file
@@ -7,6 +7,8 @@ import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.preference.PreferenceFragmentCompat;
 
+import com.demoody.missedcall.utils.PreferenceManager;
+
 public class SettingsActivity extends AppCompatActivity {
 
     @Override
@@ -41,6 +43,8 @@ public class SettingsActivity extends AppCompatActivity {
     public static class SettingsFragment extends PreferenceFragmentCompat {
         @Override
         public void onCreatePreferences(Bundle savedInstanceState, String rootKey) {
+            // Write to the file the rest of the app reads, not the default preferences
+            getPreferenceManager().setSharedPreferencesName(PreferenceManager.PREF_NAME);
             setPreferencesFromResource(R.xml.preferences, rootKey);
         }
     }
@@ -0,0 +1,79 @@
+package com.demoody.missedcall.adapters;
+
+import android.text.format.DateUtils;
+import android.view.LayoutInflater;
+import android.view.ViewGroup;
+
+import androidx.annotation.NonNull;
+import androidx.core.content.ContextCompat;
+import androidx.paging.PagingDataAdapter;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.demoody.missedcall.R;
+import com.demoody.missedcall.databinding.ItemCallHistoryBinding;
+import com.demoody.missedcall.db.CallHistoryItem;
+
+public class CallHistoryAdapter extends PagingDataAdapter<CallHistoryItem, CallHistoryAdapter.ViewHolder> {
+    
+    private static final DiffUtil.ItemCallback<CallHistoryItem> DIFF_CALLBACK = new DiffUtil.ItemCallback<CallHistoryItem>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull CallHistoryItem oldItem, @NonNull CallHistoryItem newItem) {
+            return oldItem.id == newItem.id;
+        }
+        
+        @Override
+        public boolean areContentsTheSame(@NonNull CallHistoryItem oldItem, @NonNull CallHistoryItem newItem) {
+            return oldItem.equals(newItem);
+        }
+    };
+    
+    public CallHistoryAdapter() {
+        super(DIFF_CALLBACK);
+    }
+    
+    @NonNull
+    @Override
+    public ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        ItemCallHistoryBinding binding = ItemCallHistoryBinding.inflate(
+            LayoutInflater.from(parent.getContext()), parent, false);
+        return new ViewHolder(binding);
+    }
+    
+    @Override
+    public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
+        // Null only while a placeholder is shown; placeholders are disabled
+        CallHistoryItem item = getItem(position);
+        if (item != null) {
+            holder.bind(item);
+        }
+    }
+    
+    static class ViewHolder extends RecyclerView.ViewHolder {
+        
+        private final ItemCallHistoryBinding binding;
+        
+        ViewHolder(ItemCallHistoryBinding binding) {
+            super(binding.getRoot());
+            this.binding = binding;
+        }
+        
+        void bind(CallHistoryItem item) {
+            binding.textPhoneNumber.setText(item.phoneNumber);
+            binding.textCallTime.setText(DateUtils.getRelativeTimeSpanString(
+                item.callTime, System.currentTimeMillis(), DateUtils.MINUTE_IN_MILLIS));
+            binding.textCallStatus.setText(item.status);
+            binding.textCallStatus.setTextColor(
+                ContextCompat.getColor(binding.getRoot().getContext(), statusColor(item.status)));
+        }
+        
+        private static int statusColor(String status) {
+            if ("SENT".equals(status)) {
+                return R.color.status_active;
+            } else if ("FAILED".equals(status)) {
+                return R.color.status_error;
+            }
+            return R.color.status_inactive;
+        }
+    }
+}
@@ -5,12 +5,14 @@ import android.content.Context;
 import androidx.room.Database;
 import androidx.room.Room;
 import androidx.room.RoomDatabase;
-import androidx.room.migration.Migration;
 import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.sqlite.db.framework.FrameworkSQLiteOpenHelperFactory;
+
+import com.demoody.missedcall.MissedCallApplication;
 
 @Database(
-    entities = {MissedCallEntity.class},
-    version = 1,
+    entities = {MissedCallEntity.class, CallCounterEntity.class, DailySummaryEntity.class, BlockedNumberEntity.class},
+    version = 8,
     exportSchema = false
 )
 public abstract class AppDatabase extends RoomDatabase {
@@ -20,35 +22,46 @@ public abstract class AppDatabase extends RoomDatabase {
     
     public abstract MissedCallDao missedCallDao();
     
+    public abstract BlockedNumberDao blockedNumberDao();
+    
     public static AppDatabase getInstance(Context context) {
         if (INSTANCE == null) {
             synchronized (AppDatabase.class) {
                 if (INSTANCE == null) {
-                    INSTANCE = Room.databaseBuilder(
-                        context.getApplicationContext(),
+                    Context appContext = context.getApplicationContext();
+                    StorageProfile profile;
+                    Builder<AppDatabase> builder = Room.databaseBuilder(
+                        appContext,
                         AppDatabase.class,
                         DATABASE_NAME
-                    )
+                    );
+                    
+                    // Run Room's queries and transactions on the app's sized database pools
+                    if (appContext instanceof MissedCallApplication) {
+                        MissedCallApplication app = (MissedCallApplication) appContext;
+                        profile = app.getStorageProfile();
+                        builder.setQueryExecutor(app.getExecutors().databaseQuery())
+                            .setTransactionExecutor(app.getExecutors().databaseTransaction());
+                    } else {
+                        profile = StorageProfile.forDevice(appContext);
+                    }
+                    
+                    INSTANCE = builder
+                    .setJournalMode(profile.getJournalMode())
                     .addCallback(new Callback() {
                         @Override
                         public void onCreate(SupportSQLiteDatabase db) {
                             super.onCreate(db);
-                            // Database created
+                            Migrations.createCounterTriggers(db);
                         }
                     })
-                    .fallbackToDestructiveMigration() // For development - remove in production
+                    .openHelperFactory(new ConfiguringOpenHelperFactory(new FrameworkSQLiteOpenHelperFactory(), profile))
+                    .addMigrations(Migrations.all(appContext))
+                    .fallbackToDestructiveMigrationOnDowngrade()
                     .build();
                 }
             }
         }
         return INSTANCE;
     }
-    
-    // Migration example for future versions
-    static final Migration MIGRATION_1_2 = new Migration(1, 2) {
-        @Override
-        public void migrate(SupportSQLiteDatabase database) {
-            // Add migration logic here when needed
-        }
-    };
 }
\ No newline at end of file
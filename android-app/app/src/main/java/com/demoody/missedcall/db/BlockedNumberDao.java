@@ -0,0 +1,36 @@
+package com.demoody.missedcall.db;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+import androidx.room.Transaction;
+
+import java.util.List;
+
+@Dao
+public interface BlockedNumberDao {
+    
+    @Query("SELECT phone_key FROM blocked_numbers")
+    List<Long> getAllKeys();
+    
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void upsertAll(List<BlockedNumberEntity> blockedNumbers);
+    
+    // Callers keep the list under SQLite's 999 bound-variable limit
+    @Query("DELETE FROM blocked_numbers WHERE phone_key IN (:phoneKeys)")
+    void deleteAll(List<Long> phoneKeys);
+    
+    /**
+     * Applies one page of the server's change feed atomically.
+     */
+    @Transaction
+    default void applyDelta(List<BlockedNumberEntity> blocked, List<Long> unblockedKeys) {
+        if (!blocked.isEmpty()) {
+            upsertAll(blocked);
+        }
+        if (!unblockedKeys.isEmpty()) {
+            deleteAll(unblockedKeys);
+        }
+    }
+}
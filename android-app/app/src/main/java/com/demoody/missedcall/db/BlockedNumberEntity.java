@@ -0,0 +1,32 @@
+package com.demoody.missedcall.db;
+
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.PrimaryKey;
+
+/**
+ * Local copy of the backend's opt-out list, keyed like missed_calls by
+ * {@link com.demoody.missedcall.utils.PhoneNumberNormalizer#keyOf}. Kept in
+ * step by {@link com.demoody.missedcall.workers.BlocklistSyncWorker}.
+ */
+@Entity(tableName = "blocked_numbers")
+public class BlockedNumberEntity {
+    
+    @PrimaryKey
+    @ColumnInfo(name = "phone_key")
+    public long phoneKey;
+    
+    @ColumnInfo(name = "phone_number")
+    public String phoneNumber;
+    
+    @ColumnInfo(name = "updated_at")
+    public long updatedAt;
+    
+    public BlockedNumberEntity() {}
+    
+    public BlockedNumberEntity(long phoneKey, String phoneNumber, long updatedAt) {
+        this.phoneKey = phoneKey;
+        this.phoneNumber = phoneNumber;
+        this.updatedAt = updatedAt;
+    }
+}
@@ -0,0 +1,23 @@
+package com.demoody.missedcall.db;
+
+import androidx.annotation.NonNull;
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.PrimaryKey;
+
+/**
+ * Running row count per status, kept in sync with missed_calls by SQLite
+ * triggers (see {@link Migrations#createCounterTriggers}) so the dashboard
+ * reads a handful of rows instead of counting the whole table.
+ */
+@Entity(tableName = "call_counters")
+public class CallCounterEntity {
+    
+    @PrimaryKey
+    @NonNull
+    @ColumnInfo(name = "status")
+    public String status = "";
+    
+    @ColumnInfo(name = "count")
+    public long count;
+}
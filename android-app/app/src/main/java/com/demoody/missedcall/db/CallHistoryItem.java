@@ -0,0 +1,40 @@
+package com.demoody.missedcall.db;
+
+import androidx.room.ColumnInfo;
+
+import java.util.Objects;
+
+/**
+ * Display-only projection of a missed_calls row for the history list, so
+ * paging never loads message text or error columns.
+ */
+public class CallHistoryItem {
+    
+    @ColumnInfo(name = "id")
+    public int id;
+    
+    @ColumnInfo(name = "phone_number")
+    public String phoneNumber;
+    
+    @ColumnInfo(name = "call_time")
+    public long callTime;
+    
+    @ColumnInfo(name = "status")
+    public String status;
+    
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        CallHistoryItem that = (CallHistoryItem) o;
+        return id == that.id
+            && callTime == that.callTime
+            && Objects.equals(phoneNumber, that.phoneNumber)
+            && Objects.equals(status, that.status);
+    }
+    
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, phoneNumber, callTime, status);
+    }
+}
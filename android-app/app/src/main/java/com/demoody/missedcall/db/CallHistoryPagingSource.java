@@ -0,0 +1,122 @@
+package com.demoody.missedcall.db;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.paging.ListenableFuturePagingSource;
+import androidx.paging.PagingState;
+import androidx.room.InvalidationTracker;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+
+import kotlin.Unit;
+
+/**
+ * Loads call history newest-first using a (call_time, id) keyset cursor, so
+ * each page is an index seek no matter how deep the user scrolls. Any write
+ * to missed_calls invalidates the source and the list reloads from the top.
+ */
+public class CallHistoryPagingSource extends ListenableFuturePagingSource<CallHistoryPagingSource.Key, CallHistoryItem> {
+
+    /**
+     * Boundary row of a loaded page: appends continue after it, prepends
+     * continue before it.
+     */
+    public static final class Key {
+        final long callTime;
+        final int id;
+
+        Key(long callTime, int id) {
+            this.callTime = callTime;
+            this.id = id;
+        }
+    }
+
+    private final MissedCallDao missedCallDao;
+    private final ListeningExecutorService executor;
+    private final InvalidationTracker.Observer observer;
+
+    public CallHistoryPagingSource(AppDatabase database, ExecutorService executor) {
+        this.missedCallDao = database.missedCallDao();
+        this.executor = MoreExecutors.listeningDecorator(executor);
+        this.observer = new InvalidationTracker.Observer("missed_calls") {
+            @Override
+            public void onInvalidated(@NonNull Set<String> tables) {
+                invalidate();
+            }
+        };
+
+        database.getInvalidationTracker().addObserver(observer);
+        registerInvalidatedCallback(() -> {
+            database.getInvalidationTracker().removeObserver(observer);
+            return Unit.INSTANCE;
+        });
+    }
+
+    @NonNull
+    @Override
+    public ListenableFuture<LoadResult<Key, CallHistoryItem>> loadFuture(@NonNull LoadParams<Key> params) {
+        Key key = params.getKey();
+        int limit = params.getLoadSize();
+
+        boolean prepend = params instanceof LoadParams.Prepend;
+
+        return executor.submit(() -> load(key, limit, prepend));
+    }
+
+    private LoadResult<Key, CallHistoryItem> load(@Nullable Key key, int limit, boolean prepend) {
+        try {
+            if (key == null) {
+                List<CallHistoryItem> items = missedCallDao.getHistoryFirstPage(limit);
+                return new LoadResult.Page<>(items, null, items.size() == limit ? lastKey(items) : null);
+            }
+
+            if (prepend) {
+                List<CallHistoryItem> items = missedCallDao.getHistoryPageAfter(key.callTime, key.id, limit);
+                Collections.reverse(items);
+                if (items.isEmpty()) {
+                    return new LoadResult.Page<>(items, null, null);
+                }
+                return new LoadResult.Page<>(items, items.size() == limit ? firstKey(items) : null, lastKey(items));
+            }
+
+            List<CallHistoryItem> items = missedCallDao.getHistoryPageBefore(key.callTime, key.id, limit);
+            if (items.isEmpty()) {
+                return new LoadResult.Page<>(items, null, null);
+            }
+            return new LoadResult.Page<>(items, firstKey(items), items.size() == limit ? lastKey(items) : null);
+        } catch (Exception e) {
+            return new LoadResult.Error<>(e);
+        }
+    }
+
+    private static Key firstKey(List<CallHistoryItem> items) {
+        CallHistoryItem first = items.get(0);
+        return new Key(first.callTime, first.id);
+    }
+
+    private static Key lastKey(List<CallHistoryItem> items) {
+        CallHistoryItem last = items.get(items.size() - 1);
+        return new Key(last.callTime, last.id);
+    }
+
+    @Nullable
+    @Override
+    public Key getRefreshKey(@NonNull PagingState<Key, CallHistoryItem> state) {
+        // Status updates invalidate the source while the user is scrolled down;
+        // reload from the row just above the anchor so the anchor row is the
+        // first one loaded and newer rows come back as prepends
+        Integer anchorPosition = state.getAnchorPosition();
+        if (anchorPosition == null || anchorPosition == 0) {
+            return null;
+        }
+        CallHistoryItem above = state.closestItemToPosition(anchorPosition - 1);
+        return above != null ? new Key(above.callTime, above.id) : null;
+    }
+}
@@ -0,0 +1,46 @@
+package com.demoody.missedcall.db;
+
+import java.util.List;
+
+/**
+ * Immutable dashboard totals built from the per-status counters.
+ */
+public class CallStats {
+    
+    public static final CallStats EMPTY = new CallStats(0, 0, 0, 0, 0);
+    
+    public final long total;
+    public final long sent;
+    public final long failed;
+    public final long pending;
+    public final long skipped;
+    
+    public CallStats(long total, long sent, long failed, long pending, long skipped) {
+        this.total = total;
+        this.sent = sent;
+        this.failed = failed;
+        this.pending = pending;
+        this.skipped = skipped;
+    }
+    
+    public static CallStats from(List<StatusCount> counts) {
+        if (counts == null || counts.isEmpty()) {
+            return EMPTY;
+        }
+        
+        long total = 0, sent = 0, failed = 0, pending = 0, skipped = 0;
+        for (StatusCount count : counts) {
+            total += count.count;
+            if ("SENT".equals(count.status)) {
+                sent = count.count;
+            } else if ("FAILED".equals(count.status)) {
+                failed = count.count;
+            } else if ("PENDING".equals(count.status)) {
+                pending = count.count;
+            } else if ("SKIPPED".equals(count.status)) {
+                skipped = count.count;
+            }
+        }
+        return new CallStats(total, sent, failed, pending, skipped);
+    }
+}
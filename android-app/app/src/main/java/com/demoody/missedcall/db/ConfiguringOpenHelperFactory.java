@@ -0,0 +1,72 @@
+package com.demoody.missedcall.db;
+
+import androidx.annotation.NonNull;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.sqlite.db.SupportSQLiteOpenHelper;
+
+/**
+ * Wraps the open helper so the {@link StorageProfile} PRAGMAs are applied
+ * in onConfigure: before Room creates or migrates the schema, and again
+ * whenever the helper reopens its connection. Room's own callbacks only
+ * see the connection after that work is done.
+ *
+ * <p>A new database file also gets incremental auto-vacuum here, as the
+ * mode can only be chosen before the first table is created. On an
+ * existing file the PRAGMA changes nothing; those are converted once by
+ * {@code VacuumWorker}.
+ */
+final class ConfiguringOpenHelperFactory implements SupportSQLiteOpenHelper.Factory {
+
+    private final SupportSQLiteOpenHelper.Factory delegate;
+    private final StorageProfile profile;
+
+    ConfiguringOpenHelperFactory(SupportSQLiteOpenHelper.Factory delegate, StorageProfile profile) {
+        this.delegate = delegate;
+        this.profile = profile;
+    }
+
+    @NonNull
+    @Override
+    public SupportSQLiteOpenHelper create(@NonNull SupportSQLiteOpenHelper.Configuration configuration) {
+        SupportSQLiteOpenHelper.Callback callback = configuration.callback;
+
+        return delegate.create(SupportSQLiteOpenHelper.Configuration.builder(configuration.context)
+            .name(configuration.name)
+            .noBackupDirectory(configuration.useNoBackupDirectory)
+            .allowDataLossOnRecovery(configuration.allowDataLossOnRecovery)
+            .callback(new SupportSQLiteOpenHelper.Callback(callback.version) {
+                @Override
+                public void onConfigure(@NonNull SupportSQLiteDatabase db) {
+                    db.execSQL("PRAGMA auto_vacuum = INCREMENTAL");
+                    profile.apply(db);
+                    callback.onConfigure(db);
+                }
+
+                @Override
+                public void onCreate(@NonNull SupportSQLiteDatabase db) {
+                    callback.onCreate(db);
+                }
+
+                @Override
+                public void onUpgrade(@NonNull SupportSQLiteDatabase db, int oldVersion, int newVersion) {
+                    callback.onUpgrade(db, oldVersion, newVersion);
+                }
+
+                @Override
+                public void onDowngrade(@NonNull SupportSQLiteDatabase db, int oldVersion, int newVersion) {
+                    callback.onDowngrade(db, oldVersion, newVersion);
+                }
+
+                @Override
+                public void onOpen(@NonNull SupportSQLiteDatabase db) {
+                    callback.onOpen(db);
+                }
+
+                @Override
+                public void onCorruption(@NonNull SupportSQLiteDatabase db) {
+                    callback.onCorruption(db);
+                }
+            })
+            .build());
+    }
+}
@@ -0,0 +1,30 @@
+package com.demoody.missedcall.db;
+
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.PrimaryKey;
+
+/**
+ * Per-day totals for missed calls that retention has already deleted, so
+ * long-term history survives in one row per day.
+ */
+@Entity(tableName = "daily_summaries")
+public class DailySummaryEntity {
+    
+    // Days since the epoch in the device's local time zone
+    @PrimaryKey
+    @ColumnInfo(name = "day")
+    public long day;
+    
+    @ColumnInfo(name = "total")
+    public long total;
+    
+    @ColumnInfo(name = "sent")
+    public long sent;
+    
+    @ColumnInfo(name = "failed")
+    public long failed;
+    
+    @ColumnInfo(name = "skipped")
+    public long skipped;
+}
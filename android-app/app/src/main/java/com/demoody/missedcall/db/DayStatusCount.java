@@ -0,0 +1,15 @@
+package com.demoody.missedcall.db;
+
+import androidx.room.ColumnInfo;
+
+public class DayStatusCount {
+    
+    @ColumnInfo(name = "day")
+    public long day;
+    
+    @ColumnInfo(name = "status")
+    public String status;
+    
+    @ColumnInfo(name = "count")
+    public long count;
+}
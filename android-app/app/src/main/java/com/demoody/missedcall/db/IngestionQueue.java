@@ -0,0 +1,173 @@
+package com.demoody.missedcall.db;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Buffers incoming missed calls in memory and writes everything that arrives
+ * within a short window with a single bulk insert, so a burst of calls costs
+ * one SQLite transaction (and one journal sync) instead of one per call.
+ */
+public class IngestionQueue {
+
+    private static final String TAG = "IngestionQueue";
+
+    static final long COMMIT_WINDOW_MS = 250;
+    static final int CAPACITY = 256;
+    static final int BULK_INSERT_ATTEMPTS = 2;
+
+    // Room's result for a row skipped by OnConflictStrategy.IGNORE
+    private static final long IGNORED_ROW_ID = -1;
+
+    public interface Callback {
+        /**
+         * @param rowId the new row id, 0 if the call was a duplicate, or -1
+         *              if it could not be stored
+         */
+        void onCommitted(MissedCallEntity missedCall, long rowId);
+    }
+
+    public interface CommitListener {
+        void onBatchCommitted(int insertedCount);
+    }
+
+    private static class Entry {
+        final MissedCallEntity missedCall;
+        final Callback callback;
+
+        Entry(MissedCallEntity missedCall, Callback callback) {
+            this.missedCall = missedCall;
+            this.callback = callback;
+        }
+    }
+
+    private final MissedCallDao missedCallDao;
+    private final Executor executor;
+    private final CommitListener commitListener;
+    private final ArrayBlockingQueue<Entry> buffer = new ArrayBlockingQueue<>(CAPACITY);
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private final Handler timer = new Handler(Looper.getMainLooper());
+    private final Runnable flushTask = this::flush;
+
+    public IngestionQueue(MissedCallDao missedCallDao, Executor executor, CommitListener commitListener) {
+        this.missedCallDao = missedCallDao;
+        this.executor = executor;
+        this.commitListener = commitListener;
+    }
+
+    /**
+     * Queues a call for the next group commit. Safe to call from any thread.
+     */
+    public void enqueue(MissedCallEntity missedCall, Callback callback) {
+        Entry entry = new Entry(missedCall, callback);
+
+        if (!buffer.offer(entry)) {
+            // Buffer full: commit what we have right away and retry once
+            Log.w(TAG, "Ingestion buffer full, flushing early");
+            executor.execute(() -> {
+                flush();
+                if (!buffer.offer(entry)) {
+                    commit(Collections.singletonList(entry));
+                }
+                scheduleFlush();
+            });
+            return;
+        }
+
+        scheduleFlush();
+    }
+
+    private void scheduleFlush() {
+        if (flushScheduled.compareAndSet(false, true)) {
+            timer.postDelayed(() -> executor.execute(flushTask), COMMIT_WINDOW_MS);
+        }
+    }
+
+    private void flush() {
+        // Clear the flag first so calls arriving during the commit open a new window
+        flushScheduled.set(false);
+
+        List<Entry> entries = new ArrayList<>(buffer.size());
+        buffer.drainTo(entries);
+        if (!entries.isEmpty()) {
+            commit(entries);
+        }
+    }
+
+    private void commit(List<Entry> entries) {
+        List<MissedCallEntity> calls = new ArrayList<>(entries.size());
+        for (Entry entry : entries) {
+            calls.add(entry.missedCall);
+        }
+
+        long[] rowIds = insertAll(calls);
+
+        int inserted = 0;
+        for (int i = 0; i < entries.size(); i++) {
+            long rowId = rowIds[i];
+            if (rowId > 0) {
+                inserted++;
+            }
+
+            Callback callback = entries.get(i).callback;
+            if (callback != null) {
+                try {
+                    callback.onCommitted(entries.get(i).missedCall, rowId);
+                } catch (Exception e) {
+                    Log.e(TAG, "Ingestion callback failed", e);
+                }
+            }
+        }
+
+        Log.d(TAG, "Committed " + entries.size() + " calls (" + inserted + " new)");
+
+        if (inserted > 0 && commitListener != null) {
+            commitListener.onBatchCommitted(inserted);
+        }
+    }
+
+    /**
+     * Bulk-inserts the calls, retrying once. If the transaction still fails,
+     * which one bad row is enough for, each call is inserted on its own so
+     * only the rows that really cannot be stored are lost.
+     *
+     * @return per call, as reported to {@link Callback#onCommitted}
+     */
+    private long[] insertAll(List<MissedCallEntity> calls) {
+        long[] rowIds = new long[calls.size()];
+
+        for (int attempt = 1; attempt <= BULK_INSERT_ATTEMPTS; attempt++) {
+            try {
+                List<Long> inserted = missedCallDao.insertAll(calls);
+                for (int i = 0; i < rowIds.length; i++) {
+                    rowIds[i] = toCallbackRowId(inserted.get(i));
+                }
+                return rowIds;
+            } catch (Exception e) {
+                Log.w(TAG, "Bulk insert of " + calls.size() + " missed calls failed, attempt " + attempt, e);
+            }
+        }
+
+        for (int i = 0; i < rowIds.length; i++) {
+            try {
+                rowIds[i] = toCallbackRowId(missedCallDao.insert(calls.get(i)));
+            } catch (Exception e) {
+                Log.e(TAG, "Error storing missed call", e);
+                rowIds[i] = -1;
+            }
+        }
+        return rowIds;
+    }
+
+    private static long toCallbackRowId(long rowId) {
+        return rowId == IGNORED_ROW_ID ? 0 : rowId;
+    }
+}
@@ -0,0 +1,146 @@
+package com.demoody.missedcall.db;
+
+import android.content.Context;
+import android.database.Cursor;
+
+import androidx.annotation.NonNull;
+import androidx.room.migration.Migration;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+import com.demoody.missedcall.utils.PhoneNumberNormalizer;
+
+/**
+ * Schema migrations for {@link AppDatabase}. Every version bump must add a
+ * migration here and register it in {@link #all(Context)}; upgrades never fall back
+ * to wiping the database.
+ */
+final class Migrations {
+
+    private Migrations() {}
+
+    // Replace the single-column status index with (status, scheduled_time) so
+    // the dispatch queries can seek straight to the earliest due PENDING row
+    static final Migration MIGRATION_1_2 = new Migration(1, 2) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("DROP INDEX IF EXISTS index_missed_calls_status");
+            db.execSQL("CREATE INDEX IF NOT EXISTS index_missed_calls_status_scheduled_time "
+                + "ON missed_calls (status, scheduled_time)");
+        }
+    };
+
+    // Per-status counters maintained by triggers, seeded from the existing rows
+    static final Migration MIGRATION_2_3 = new Migration(2, 3) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE TABLE IF NOT EXISTS call_counters "
+                + "(status TEXT NOT NULL, count INTEGER NOT NULL, PRIMARY KEY(status))");
+            db.execSQL("INSERT OR REPLACE INTO call_counters (status, count) "
+                + "SELECT status, COUNT(*) FROM missed_calls WHERE status IS NOT NULL GROUP BY status");
+            createCounterTriggers(db);
+        }
+    };
+
+    // Daily roll-ups written by retention before it deletes old rows
+    static final Migration MIGRATION_3_4 = new Migration(3, 4) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE TABLE IF NOT EXISTS daily_summaries "
+                + "(day INTEGER NOT NULL, total INTEGER NOT NULL, sent INTEGER NOT NULL, "
+                + "failed INTEGER NOT NULL, skipped INTEGER NOT NULL, PRIMARY KEY(day))");
+        }
+    };
+
+    // Normalize stored numbers to E.164, key them by phone_key and merge rows
+    // that only differed in how the number was formatted
+    static Migration migration4To5(PhoneNumberNormalizer normalizer) {
+        return new Migration(4, 5) {
+            @Override
+            public void migrate(@NonNull SupportSQLiteDatabase db) {
+                db.execSQL("ALTER TABLE missed_calls ADD COLUMN phone_key INTEGER NOT NULL DEFAULT 0");
+
+                // Drop the old unique index first: rows that normalize to the same
+                // number and time would otherwise fail the UPDATE before the merge
+                db.execSQL("DROP INDEX IF EXISTS index_missed_calls_phone_number_call_time");
+
+                try (Cursor cursor = db.query("SELECT id, phone_number FROM missed_calls")) {
+                    while (cursor.moveToNext()) {
+                        String normalized = normalizer.normalize(cursor.getString(1));
+                        db.execSQL("UPDATE missed_calls SET phone_number = ?, phone_key = ? WHERE id = ?",
+                            new Object[] {normalized, PhoneNumberNormalizer.keyOf(normalized), cursor.getInt(0)});
+                    }
+                }
+
+                db.execSQL("DELETE FROM missed_calls WHERE id NOT IN "
+                    + "(SELECT MIN(id) FROM missed_calls GROUP BY phone_key, call_time)");
+                db.execSQL("CREATE UNIQUE INDEX IF NOT EXISTS index_missed_calls_phone_key_call_time "
+                    + "ON missed_calls (phone_key, call_time)");
+            }
+        };
+    }
+
+    // Settings snapshot version each call was scheduled under
+    static final Migration MIGRATION_5_6 = new Migration(5, 6) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("ALTER TABLE missed_calls ADD COLUMN settings_version INTEGER NOT NULL DEFAULT 0");
+        }
+    };
+
+    // Existing rows get a random key so they can be retried safely too
+    static final Migration MIGRATION_6_7 = new Migration(6, 7) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("ALTER TABLE missed_calls ADD COLUMN idempotency_key TEXT NOT NULL DEFAULT ''");
+            db.execSQL("UPDATE missed_calls SET idempotency_key = lower(hex(randomblob(16)))");
+            db.execSQL("CREATE UNIQUE INDEX IF NOT EXISTS index_missed_calls_idempotency_key "
+                + "ON missed_calls (idempotency_key)");
+        }
+    };
+
+    static final Migration MIGRATION_7_8 = new Migration(7, 8) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE TABLE IF NOT EXISTS blocked_numbers ("
+                + "phone_key INTEGER NOT NULL, "
+                + "phone_number TEXT, "
+                + "updated_at INTEGER NOT NULL, "
+                + "PRIMARY KEY(phone_key))");
+        }
+    };
+
+    static Migration[] all(Context context) {
+        return new Migration[] {
+            MIGRATION_1_2,
+            MIGRATION_2_3,
+            MIGRATION_3_4,
+            migration4To5(new PhoneNumberNormalizer(context)),
+            MIGRATION_5_6,
+            MIGRATION_6_7,
+            MIGRATION_7_8
+        };
+    }
+
+    /**
+     * Room cannot declare triggers, so they are created here for upgrades and
+     * from {@link AppDatabase}'s onCreate callback for fresh installs.
+     */
+    static void createCounterTriggers(SupportSQLiteDatabase db) {
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS call_counters_insert AFTER INSERT ON missed_calls "
+            + "BEGIN "
+            + "INSERT OR IGNORE INTO call_counters (status, count) VALUES (NEW.status, 0); "
+            + "UPDATE call_counters SET count = count + 1 WHERE status = NEW.status; "
+            + "END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS call_counters_delete AFTER DELETE ON missed_calls "
+            + "BEGIN "
+            + "UPDATE call_counters SET count = count - 1 WHERE status = OLD.status; "
+            + "END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS call_counters_update AFTER UPDATE OF status ON missed_calls "
+            + "WHEN OLD.status IS NOT NEW.status "
+            + "BEGIN "
+            + "UPDATE call_counters SET count = count - 1 WHERE status = OLD.status; "
+            + "INSERT OR IGNORE INTO call_counters (status, count) VALUES (NEW.status, 0); "
+            + "UPDATE call_counters SET count = count + 1 WHERE status = NEW.status; "
+            + "END");
+    }
+}
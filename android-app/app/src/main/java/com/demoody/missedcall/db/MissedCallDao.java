@@ -5,6 +5,7 @@ import androidx.room.Dao;
 import androidx.room.Insert;
 import androidx.room.OnConflictStrategy;
 import androidx.room.Query;
+import androidx.room.Transaction;
 import androidx.room.Update;
 
 import java.util.List;
@@ -15,45 +16,147 @@ public interface MissedCallDao {
     @Insert(onConflict = OnConflictStrategy.IGNORE)
     long insert(MissedCallEntity missedCall);
     
+    // Runs as one transaction; ignored duplicates come back as -1
+    @Insert(onConflict = OnConflictStrategy.IGNORE)
+    List<Long> insertAll(List<MissedCallEntity> missedCalls);
+    
     @Update
     void update(MissedCallEntity missedCall);
     
     @Query("SELECT * FROM missed_calls WHERE id = :id")
     MissedCallEntity findById(int id);
     
-    @Query("SELECT * FROM missed_calls WHERE phone_number = :phoneNumber AND call_time = :callTime")
-    MissedCallEntity findByPhoneAndTime(String phoneNumber, long callTime);
+    @Query("SELECT * FROM missed_calls WHERE phone_key = :phoneKey AND call_time = :callTime")
+    MissedCallEntity findByPhoneAndTime(long phoneKey, long callTime);
+    
+    @Query("SELECT * FROM missed_calls WHERE phone_key = :phoneKey AND call_time >= :timeWindow ORDER BY call_time DESC LIMIT 1")
+    MissedCallEntity findRecentByPhone(long phoneKey, long timeWindow);
     
-    @Query("SELECT * FROM missed_calls WHERE phone_number = :phoneNumber AND call_time >= :timeWindow ORDER BY call_time DESC LIMIT 1")
-    MissedCallEntity findRecentByPhone(String phoneNumber, long timeWindow);
+    // Latest call per number since :since, used to warm the cooldown cache
+    @Query("SELECT phone_key, MAX(call_time) AS call_time FROM missed_calls WHERE call_time >= :since GROUP BY phone_key")
+    List<RecentCaller> getRecentCallers(long since);
     
     @Query("SELECT * FROM missed_calls WHERE status = 'PENDING' AND scheduled_time <= :currentTime ORDER BY scheduled_time ASC LIMIT :limit")
     List<MissedCallEntity> getPendingCalls(long currentTime, int limit);
     
+    @Query("SELECT MIN(scheduled_time) FROM missed_calls WHERE status = 'PENDING'")
+    Long getNextScheduledTime();
+    
     @Query("SELECT * FROM missed_calls ORDER BY call_time DESC LIMIT :limit OFFSET :offset")
     LiveData<List<MissedCallEntity>> getAllCalls(int limit, int offset);
     
-    @Query("SELECT * FROM missed_calls ORDER BY call_time DESC")
-    LiveData<List<MissedCallEntity>> getAllCallsLive();
+    // Keyset pages for the history list, newest first; (call_time, id) is the cursor
+    @Query("SELECT id, phone_number, call_time, status FROM missed_calls ORDER BY call_time DESC, id DESC LIMIT :limit")
+    List<CallHistoryItem> getHistoryFirstPage(int limit);
+    
+    @Query("SELECT id, phone_number, call_time, status FROM missed_calls " +
+           "WHERE call_time < :callTime OR (call_time = :callTime AND id < :id) " +
+           "ORDER BY call_time DESC, id DESC LIMIT :limit")
+    List<CallHistoryItem> getHistoryPageBefore(long callTime, int id, int limit);
     
-    @Query("SELECT COUNT(*) FROM missed_calls")
-    LiveData<Integer> getTotalCount();
+    // Oldest-first; used to reload pages dropped off the top of the list
+    @Query("SELECT id, phone_number, call_time, status FROM missed_calls " +
+           "WHERE call_time > :callTime OR (call_time = :callTime AND id > :id) " +
+           "ORDER BY call_time ASC, id ASC LIMIT :limit")
+    List<CallHistoryItem> getHistoryPageAfter(long callTime, int id, int limit);
     
-    @Query("SELECT COUNT(*) FROM missed_calls WHERE status = :status")
-    LiveData<Integer> getCountByStatus(String status);
+    // Only emits when a status actually changes; see CallCounterEntity
+    @Query("SELECT status, count FROM call_counters")
+    LiveData<List<StatusCount>> getStatusCountsLive();
     
     @Query("UPDATE missed_calls SET status = :status, sent_at = :sentAt, provider_message_id = :messageId WHERE id = :id")
     void updateStatusSent(int id, String status, long sentAt, String messageId);
     
+    // Matches server rows to local ones by the key sent with each call; keep the list under 999
+    @Query("SELECT id, idempotency_key, status, attempt_count, provider_message_id FROM missed_calls WHERE idempotency_key IN (:idempotencyKeys)")
+    List<SyncTarget> findByIdempotencyKeys(List<String> idempotencyKeys);
+    
     @Query("UPDATE missed_calls SET status = :status, attempt_count = :attemptCount, error_message = :errorMessage WHERE id = :id")
     void updateStatusFailed(int id, String status, int attemptCount, String errorMessage);
     
     @Query("UPDATE missed_calls SET status = :status, scheduled_time = :scheduledTime, attempt_count = :attemptCount WHERE id = :id")
     void updateStatusRetry(int id, String status, long scheduledTime, int attemptCount);
     
+    /**
+     * Writes each call's status, scheduled_time and attempt_count in one
+     * transaction.
+     */
+    @Transaction
+    default void updateStatusRetryAll(List<MissedCallEntity> calls) {
+        for (MissedCallEntity call : calls) {
+            updateStatusRetry(call.id, call.status, call.scheduledTime, call.attemptCount);
+        }
+    }
+    
+    // Keeps the row PENDING and records why its next attempt was pushed back
+    @Query("UPDATE missed_calls SET scheduled_time = :scheduledTime, attempt_count = :attemptCount, error_message = :errorMessage WHERE id = :id")
+    void scheduleRetry(int id, long scheduledTime, int attemptCount, String errorMessage);
+    
+    // Pushes every PENDING call due before :retryAt back to it without spending an attempt
+    @Query("UPDATE missed_calls SET scheduled_time = :retryAt WHERE status = 'PENDING' AND scheduled_time < :retryAt")
+    int holdPendingUntil(long retryAt);
+    
+    // Undoes holdPendingUntil(:heldUntil) once the backend can be reached again
+    @Query("UPDATE missed_calls SET scheduled_time = :now WHERE status = 'PENDING' AND scheduled_time = :heldUntil")
+    int releaseHeldCalls(long heldUntil, long now);
+    
+    @Query("SELECT COUNT(*) FROM missed_calls WHERE status = 'PENDING' AND scheduled_time >= :fromTime")
+    int countPendingFrom(long fromTime);
+    
     @Query("DELETE FROM missed_calls WHERE call_time < :cutoffTime")
     void deleteOldCalls(long cutoffTime);
     
-    @Query("SELECT COUNT(*) FROM missed_calls WHERE phone_number = :phoneNumber AND call_time >= :timeWindow")
-    int getRecentCallCount(String phoneNumber, long timeWindow);
+    // call_time of the row just past the newest :maxRows, or null if under the cap
+    @Query("SELECT call_time FROM missed_calls ORDER BY call_time DESC LIMIT 1 OFFSET :maxRows")
+    Long getCallTimeBeyondLimit(int maxRows);
+    
+    @Query("SELECT id FROM missed_calls WHERE call_time < :cutoffTime AND status != 'PENDING' ORDER BY call_time ASC LIMIT :limit")
+    List<Integer> getExpiredCallIds(long cutoffTime, int limit);
+    
+    @Query("SELECT (call_time + :utcOffsetMillis) / 86400000 AS day, status, COUNT(*) AS count " +
+           "FROM missed_calls WHERE id IN (:ids) GROUP BY day, status")
+    List<DayStatusCount> countByDayAndStatus(List<Integer> ids, long utcOffsetMillis);
+    
+    @Query("INSERT OR IGNORE INTO daily_summaries (day, total, sent, failed, skipped) VALUES (:day, 0, 0, 0, 0)")
+    void ensureDailySummary(long day);
+    
+    @Query("UPDATE daily_summaries SET total = total + :total, sent = sent + :sent, " +
+           "failed = failed + :failed, skipped = skipped + :skipped WHERE day = :day")
+    void addToDailySummary(long day, long total, long sent, long failed, long skipped);
+    
+    @Query("DELETE FROM missed_calls WHERE id IN (:ids)")
+    int deleteByIds(List<Integer> ids);
+    
+    /**
+     * Deletes one bounded chunk of expired rows, optionally rolling them into
+     * daily_summaries first, in a single short transaction.
+     *
+     * @return number of rows deleted; 0 when nothing is left to expire
+     */
+    @Transaction
+    default int purgeExpiredChunk(long cutoffTime, int limit, boolean summarize, long utcOffsetMillis) {
+        List<Integer> ids = getExpiredCallIds(cutoffTime, limit);
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        
+        if (summarize) {
+            for (DayStatusCount count : countByDayAndStatus(ids, utcOffsetMillis)) {
+                ensureDailySummary(count.day);
+                addToDailySummary(count.day, count.count,
+                    "SENT".equals(count.status) ? count.count : 0,
+                    "FAILED".equals(count.status) ? count.count : 0,
+                    "SKIPPED".equals(count.status) ? count.count : 0);
+            }
+        }
+        
+        return deleteByIds(ids);
+    }
+    
+    @Query("SELECT COUNT(*) FROM missed_calls WHERE phone_key = :phoneKey AND call_time >= :timeWindow")
+    int getRecentCallCount(long phoneKey, long timeWindow);
+    
+    // Range read on the (phone_key, call_time) index
+    @Query("SELECT COUNT(*) FROM missed_calls WHERE phone_key = :phoneKey AND call_time BETWEEN :fromTime AND :toTime")
+    int countCallsBetween(long phoneKey, long fromTime, long toTime);
 }
\ No newline at end of file
@@ -1,16 +1,22 @@
 package com.demoody.missedcall.db;
 
+import androidx.annotation.NonNull;
 import androidx.room.ColumnInfo;
 import androidx.room.Entity;
 import androidx.room.Index;
 import androidx.room.PrimaryKey;
 
+import com.demoody.missedcall.utils.PhoneNumberNormalizer;
+
+import java.util.UUID;
+
 @Entity(
     tableName = "missed_calls",
     indices = {
-        @Index(value = {"phone_number", "call_time"}, unique = true),
-        @Index(value = "status"),
-        @Index(value = "call_time")
+        @Index(value = {"phone_key", "call_time"}, unique = true),
+        @Index(value = {"status", "scheduled_time"}),
+        @Index(value = "call_time"),
+        @Index(value = "idempotency_key", unique = true)
     }
 )
 public class MissedCallEntity {
@@ -19,7 +25,10 @@ public class MissedCallEntity {
     public int id;
     
     @ColumnInfo(name = "phone_number")
-    public String phoneNumber;
+    public String phoneNumber; // E.164 where the number could be parsed
+    
+    @ColumnInfo(name = "phone_key", defaultValue = "0")
+    public long phoneKey; // PhoneNumberNormalizer.keyOf(phoneNumber)
     
     @ColumnInfo(name = "call_time")
     public long callTime;
@@ -48,6 +57,14 @@ public class MissedCallEntity {
     @ColumnInfo(name = "created_at")
     public long createdAt;
     
+    @ColumnInfo(name = "settings_version", defaultValue = "0")
+    public long settingsVersion; // Settings.version the call was scheduled under
+    
+    // Sent with every delivery attempt so the backend can recognise replays
+    @NonNull
+    @ColumnInfo(name = "idempotency_key", defaultValue = "")
+    public String idempotencyKey = "";
+    
     public MissedCallEntity() {
         this.createdAt = System.currentTimeMillis();
         this.status = "PENDING";
@@ -57,8 +74,10 @@ public class MissedCallEntity {
     public MissedCallEntity(String phoneNumber, long callTime, long scheduledTime, String messageText) {
         this();
         this.phoneNumber = phoneNumber;
+        this.phoneKey = PhoneNumberNormalizer.keyOf(phoneNumber);
         this.callTime = callTime;
         this.scheduledTime = scheduledTime;
         this.messageText = messageText;
+        this.idempotencyKey = UUID.randomUUID().toString();
     }
 }
\ No newline at end of file
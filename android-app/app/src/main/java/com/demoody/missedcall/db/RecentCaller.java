@@ -0,0 +1,12 @@
+package com.demoody.missedcall.db;
+
+import androidx.room.ColumnInfo;
+
+public class RecentCaller {
+    
+    @ColumnInfo(name = "phone_key")
+    public long phoneKey;
+    
+    @ColumnInfo(name = "call_time")
+    public long callTime;
+}
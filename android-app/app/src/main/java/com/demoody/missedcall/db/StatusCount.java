@@ -0,0 +1,12 @@
+package com.demoody.missedcall.db;
+
+import androidx.room.ColumnInfo;
+
+public class StatusCount {
+    
+    @ColumnInfo(name = "status")
+    public String status;
+    
+    @ColumnInfo(name = "count")
+    public long count;
+}
@@ -0,0 +1,134 @@
+package com.demoody.missedcall.db;
+
+import android.app.ActivityManager;
+import android.content.Context;
+import android.database.Cursor;
+import android.util.Log;
+
+import androidx.room.RoomDatabase;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+/**
+ * SQLite tuning for {@link AppDatabase}: journal mode, Room executor sizing
+ * and per-connection PRAGMAs. Use {@link #forDevice(Context)} for defaults
+ * that match the device, or {@link Builder} to override them.
+ */
+public class StorageProfile {
+
+    private static final String TAG = "StorageProfile";
+
+    private final RoomDatabase.JournalMode journalMode;
+    private final int queryThreads;
+    private final String synchronousMode;
+    private final int cacheSizeKb;
+    private final long mmapSizeBytes;
+
+    private StorageProfile(Builder builder) {
+        this.journalMode = builder.journalMode;
+        this.queryThreads = builder.queryThreads;
+        this.synchronousMode = builder.synchronousMode;
+        this.cacheSizeKb = builder.cacheSizeKb;
+        this.mmapSizeBytes = builder.mmapSizeBytes;
+    }
+
+    /**
+     * WAL with relaxed syncing on regular devices; a smaller cache, no mmap
+     * and a single reader on low-RAM devices.
+     */
+    public static StorageProfile forDevice(Context context) {
+        ActivityManager activityManager = (ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE);
+        boolean lowRam = activityManager != null && activityManager.isLowRamDevice();
+        int cores = Runtime.getRuntime().availableProcessors();
+
+        if (lowRam) {
+            return new Builder()
+                .setJournalMode(RoomDatabase.JournalMode.WRITE_AHEAD_LOGGING)
+                .setQueryThreads(1)
+                .setSynchronousMode("NORMAL")
+                .setCacheSizeKb(1024)
+                .setMmapSizeBytes(0)
+                .build();
+        }
+
+        return new Builder()
+            .setJournalMode(RoomDatabase.JournalMode.WRITE_AHEAD_LOGGING)
+            .setQueryThreads(Math.max(2, Math.min(cores / 2, 4)))
+            .setSynchronousMode("NORMAL")
+            .setCacheSizeKb(4096)
+            .setMmapSizeBytes(32L * 1024 * 1024)
+            .build();
+    }
+
+    public RoomDatabase.JournalMode getJournalMode() {
+        return journalMode;
+    }
+
+    public int getQueryThreads() {
+        return queryThreads;
+    }
+
+    /**
+     * Applies the connection PRAGMAs. Called from the open helper's
+     * onConfigure, so they also cover schema creation and migrations.
+     * cache_size, mmap_size and temp_store are per connection and only
+     * reach the connection the helper configures; the extra reader
+     * connections the framework opens in WAL mode keep SQLite's defaults.
+     */
+    void apply(SupportSQLiteDatabase db) {
+        // PRAGMAs that return a row must go through query(), not execSQL()
+        runPragma(db, "PRAGMA synchronous = " + synchronousMode);
+        runPragma(db, "PRAGMA cache_size = -" + cacheSizeKb);
+        runPragma(db, "PRAGMA mmap_size = " + mmapSizeBytes);
+        runPragma(db, "PRAGMA temp_store = MEMORY");
+    }
+
+    private static void runPragma(SupportSQLiteDatabase db, String pragma) {
+        try (Cursor cursor = db.query(pragma)) {
+            cursor.moveToFirst();
+        } catch (Exception e) {
+            Log.w(TAG, "Failed to apply " + pragma, e);
+        }
+    }
+
+    public static class Builder {
+
+        private RoomDatabase.JournalMode journalMode = RoomDatabase.JournalMode.AUTOMATIC;
+        private int queryThreads = 2;
+        private String synchronousMode = "FULL";
+        private int cacheSizeKb = 2048;
+        private long mmapSizeBytes = 0;
+
+        public Builder setJournalMode(RoomDatabase.JournalMode journalMode) {
+            this.journalMode = journalMode;
+            return this;
+        }
+
+        public Builder setQueryThreads(int queryThreads) {
+            this.queryThreads = Math.max(1, queryThreads);
+            return this;
+        }
+
+        /**
+         * One of OFF, NORMAL, FULL or EXTRA. NORMAL is durable across app
+         * crashes in WAL mode and only risks the last commit on power loss.
+         */
+        public Builder setSynchronousMode(String synchronousMode) {
+            this.synchronousMode = synchronousMode;
+            return this;
+        }
+
+        public Builder setCacheSizeKb(int cacheSizeKb) {
+            this.cacheSizeKb = cacheSizeKb;
+            return this;
+        }
+
+        public Builder setMmapSizeBytes(long mmapSizeBytes) {
+            this.mmapSizeBytes = mmapSizeBytes;
+            return this;
+        }
+
+        public StorageProfile build() {
+            return new StorageProfile(this);
+        }
+    }
+}
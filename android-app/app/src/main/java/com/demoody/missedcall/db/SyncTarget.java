@@ -0,0 +1,24 @@
+package com.demoody.missedcall.db;
+
+import androidx.room.ColumnInfo;
+
+/**
+ * The local state of a call that a server-side change may update.
+ */
+public class SyncTarget {
+    
+    @ColumnInfo(name = "id")
+    public int id;
+    
+    @ColumnInfo(name = "idempotency_key")
+    public String idempotencyKey;
+    
+    @ColumnInfo(name = "status")
+    public String status;
+    
+    @ColumnInfo(name = "attempt_count")
+    public int attemptCount;
+    
+    @ColumnInfo(name = "provider_message_id")
+    public String providerMessageId;
+}
@@ -3,70 +3,138 @@ package com.demoody.missedcall.network;
 import android.content.Context;
 
 import com.demoody.missedcall.BuildConfig;
-import com.demoody.missedcall.utils.PreferenceManager;
+import com.demoody.missedcall.MissedCallApplication;
+import com.demoody.missedcall.network.json.ApiJson;
+import com.demoody.missedcall.utils.SettingsRepository;
 
+import okhttp3.Authenticator;
+import okhttp3.ConnectionPool;
+import okhttp3.HttpUrl;
 import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
 import okhttp3.logging.HttpLoggingInterceptor;
 import retrofit2.Retrofit;
 import retrofit2.converter.gson.GsonConverterFactory;
 
+import java.util.Arrays;
 import java.util.concurrent.TimeUnit;
 
+/**
+ * Owns the app's single OkHttpClient. Connections, the HTTP/2 session and
+ * TLS sessions live in that client, so it is built once and never replaced;
+ * base URL changes are applied per request by {@link BaseUrlInterceptor}.
+ * The send and health services share the pool but have their own timeouts.
+ */
 public class ApiClient {
-    
-    private static ApiClient instance;
-    private ApiService apiService;
-    private Retrofit retrofit;
-    
+
+    // Dispatch runs at most every few minutes; keep connections warm between runs
+    private static final int MAX_IDLE_CONNECTIONS = 4;
+    private static final long KEEP_ALIVE_MINUTES = 5;
+
+    // Batch uploads may wait on the SMS provider server-side
+    private static final long SEND_CONNECT_TIMEOUT_SECONDS = 15;
+    private static final long SEND_READ_TIMEOUT_SECONDS = 30;
+    private static final long SEND_WRITE_TIMEOUT_SECONDS = 30;
+    private static final long SEND_CALL_TIMEOUT_SECONDS = 60;
+
+    // A probe that is slow is as good as a failed one
+    private static final long HEALTH_CONNECT_TIMEOUT_SECONDS = 5;
+    private static final long HEALTH_READ_TIMEOUT_SECONDS = 5;
+    private static final long HEALTH_CALL_TIMEOUT_SECONDS = 10;
+
+    private static volatile ApiClient instance;
+
+    private final OkHttpClient httpClient;
+    private final TokenManager tokenManager;
+    private final ApiService apiService;
+    private final ApiService healthService;
+
     private ApiClient(Context context) {
-        PreferenceManager prefManager = new PreferenceManager(context);
-        String baseUrl = prefManager.getApiBaseUrl();
-        
-        if (baseUrl.isEmpty()) {
-            baseUrl = BuildConfig.API_BASE_URL;
-        }
-        
-        // Ensure base URL ends with /
-        if (!baseUrl.endsWith("/")) {
-            baseUrl += "/";
-        }
-        
-        OkHttpClient.Builder httpClient = new OkHttpClient.Builder()
-            .connectTimeout(30, TimeUnit.SECONDS)
-            .readTimeout(30, TimeUnit.SECONDS)
-            .writeTimeout(30, TimeUnit.SECONDS);
-        
-        // Add logging in debug builds
+        SettingsRepository settingsRepository = SettingsRepository.getInstance(context);
+        MissedCallApplication app = (MissedCallApplication) context.getApplicationContext();
+        tokenManager = new TokenManager(context, app.getExecutors().diskIO());
+
+        // Retrofit needs a fixed base URL; requests are re-pointed at the configured one
+        HttpUrl placeholder = BaseUrlInterceptor.parse(BuildConfig.API_BASE_URL);
+
+        OkHttpClient.Builder builder = new OkHttpClient.Builder()
+            .connectionPool(new ConnectionPool(MAX_IDLE_CONNECTIONS, KEEP_ALIVE_MINUTES, TimeUnit.MINUTES))
+            .protocols(Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1))
+            .retryOnConnectionFailure(true)
+            .connectTimeout(SEND_CONNECT_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+            .readTimeout(SEND_READ_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+            .writeTimeout(SEND_WRITE_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+            .callTimeout(SEND_CALL_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+            .addInterceptor(new BaseUrlInterceptor(settingsRepository, placeholder))
+            .addInterceptor(new AuthInterceptor(tokenManager))
+            .authenticator(new TokenAuthenticator(tokenManager));
+
+        // Add logging in debug builds, before compression so bodies stay readable
         if (BuildConfig.DEBUG) {
             HttpLoggingInterceptor logging = new HttpLoggingInterceptor();
             logging.setLevel(HttpLoggingInterceptor.Level.BODY);
-            httpClient.addInterceptor(logging);
+            builder.addInterceptor(logging);
         }
-        
-        // Add authentication interceptor
-        httpClient.addInterceptor(new AuthInterceptor(context));
-        
-        retrofit = new Retrofit.Builder()
-            .baseUrl(baseUrl)
-            .client(httpClient.build())
-            .addConverterFactory(GsonConverterFactory.create())
+
+        builder.addInterceptor(new GzipRequestInterceptor());
+
+        httpClient = builder.build();
+
+        // newBuilder() shares the pool, dispatcher and TLS state with httpClient
+        OkHttpClient healthClient = httpClient.newBuilder()
+            .connectTimeout(HEALTH_CONNECT_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+            .readTimeout(HEALTH_READ_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+            .callTimeout(HEALTH_CALL_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+            .build();
+
+        GsonConverterFactory converterFactory = GsonConverterFactory.create(ApiJson.create());
+        apiService = createService(httpClient, placeholder, converterFactory);
+        healthService = createService(healthClient, placeholder, converterFactory);
+
+        OkHttpClient registrationClient = httpClient.newBuilder()
+            .authenticator(Authenticator.NONE)
             .build();
-        
-        apiService = retrofit.create(ApiService.class);
+        tokenManager.setRegistrationService(createService(registrationClient, placeholder, converterFactory));
+    }
+
+    private static ApiService createService(OkHttpClient client, HttpUrl baseUrl,
+                                            GsonConverterFactory converterFactory) {
+        return new Retrofit.Builder()
+            .baseUrl(baseUrl)
+            .client(client)
+            .addConverterFactory(converterFactory)
+            .build()
+            .create(ApiService.class);
     }
-    
-    public static synchronized ApiClient getInstance(Context context) {
+
+    public static ApiClient getInstance(Context context) {
         if (instance == null) {
-            instance = new ApiClient(context.getApplicationContext());
+            synchronized (ApiClient.class) {
+                if (instance == null) {
+                    instance = new ApiClient(context.getApplicationContext());
+                }
+            }
         }
         return instance;
     }
-    
+
     public ApiService getApiService() {
         return apiService;
     }
-    
-    public void updateBaseUrl(Context context, String newBaseUrl) {
-        instance = new ApiClient(context);
+
+    /**
+     * Service for {@link ApiService#healthCheck()} probes, with short timeouts
+     * so a half-open circuit breaker decides quickly.
+     */
+    public ApiService getHealthService() {
+        return healthService;
+    }
+
+    public TokenManager getTokenManager() {
+        return tokenManager;
+    }
+
+    public OkHttpClient getHttpClient() {
+        return httpClient;
     }
-}
\ No newline at end of file
+}
@@ -1,9 +1,12 @@
 package com.demoody.missedcall.network;
 
+import com.demoody.missedcall.network.requests.BatchMissedCallRequest;
 import com.demoody.missedcall.network.requests.DeviceRegistrationRequest;
 import com.demoody.missedcall.network.requests.MissedCallRequest;
 import com.demoody.missedcall.network.requests.OptOutRequest;
 import com.demoody.missedcall.network.responses.ApiResponse;
+import com.demoody.missedcall.network.responses.BatchMissedCallResponse;
+import com.demoody.missedcall.network.responses.BlockedNumbersResponse;
 import com.demoody.missedcall.network.responses.DeviceRegistrationResponse;
 import com.demoody.missedcall.network.responses.LogsResponse;
 
@@ -18,6 +21,9 @@ public interface ApiService {
     @POST("api/v1/missed_calls")
     Call<ApiResponse<Object>> logMissedCall(@Body MissedCallRequest request);
     
+    @POST("api/v1/missed_calls/batch")
+    Call<ApiResponse<BatchMissedCallResponse>> logMissedCallsBatch(@Body BatchMissedCallRequest request);
+    
     @POST("api/v1/register_device")
     Call<ApiResponse<DeviceRegistrationResponse>> registerDevice(@Body DeviceRegistrationRequest request);
     
@@ -28,9 +34,25 @@ public interface ApiService {
         @Query("limit") int limit
     );
     
+    // Calls changed after the "since" cursor; pass "" for the first sync
+    @GET("api/v1/logs")
+    Call<ApiResponse<LogsResponse>> getLogChanges(
+        @Query("device_id") String deviceId,
+        @Query("since") String since,
+        @Query("limit") int limit
+    );
+    
     @POST("api/v1/opt_out")
     Call<ApiResponse<Object>> optOut(@Body OptOutRequest request);
     
+    // Changes to the opt-out list after the "since" cursor; omit it for the full list
+    @GET("api/v1/blocked_numbers")
+    Call<ApiResponse<BlockedNumbersResponse>> getBlockedNumbers(
+        @Query("device_id") String deviceId,
+        @Query("since") String since,
+        @Query("limit") int limit
+    );
+    
     @GET("api/v1/health")
     Call<ApiResponse<Object>> healthCheck();
 }
\ No newline at end of file
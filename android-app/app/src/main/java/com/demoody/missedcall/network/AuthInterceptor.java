@@ -1,9 +1,5 @@
 package com.demoody.missedcall.network;
 
-import android.content.Context;
-
-import com.demoody.missedcall.utils.PreferenceManager;
-
 import okhttp3.Interceptor;
 import okhttp3.Request;
 import okhttp3.Response;
@@ -12,32 +8,23 @@ import java.io.IOException;
 
 public class AuthInterceptor implements Interceptor {
     
-    private PreferenceManager preferenceManager;
+    private final TokenManager tokenManager;
     
-    public AuthInterceptor(Context context) {
-        this.preferenceManager = new PreferenceManager(context);
+    public AuthInterceptor(TokenManager tokenManager) {
+        this.tokenManager = tokenManager;
     }
     
     @Override
     public Response intercept(Chain chain) throws IOException {
-        Request originalRequest = chain.request();
+        Request.Builder builder = chain.request().newBuilder()
+            .header("User-Agent", "MissedCall-Android/1.0");
         
-        String apiToken = preferenceManager.getApiToken();
-        
-        if (apiToken != null && !apiToken.isEmpty()) {
-            Request authenticatedRequest = originalRequest.newBuilder()
-                .header("Authorization", "Bearer " + apiToken)
-                .header("User-Agent", "MissedCall-Android/1.0")
-                .build();
-            
-            return chain.proceed(authenticatedRequest);
+        // In-memory read; a missing or rejected token is handled by TokenAuthenticator
+        String apiToken = tokenManager.getToken();
+        if (!apiToken.isEmpty()) {
+            builder.header("Authorization", "Bearer " + apiToken);
         }
         
-        // Add User-Agent even without auth
-        Request requestWithUserAgent = originalRequest.newBuilder()
-            .header("User-Agent", "MissedCall-Android/1.0")
-            .build();
-        
-        return chain.proceed(requestWithUserAgent);
+        return chain.proceed(builder.build());
     }
-}
\ No newline at end of file
+}
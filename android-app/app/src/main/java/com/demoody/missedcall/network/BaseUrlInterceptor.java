@@ -0,0 +1,87 @@
+package com.demoody.missedcall.network;
+
+import com.demoody.missedcall.utils.Settings;
+import com.demoody.missedcall.utils.SettingsRepository;
+
+import okhttp3.HttpUrl;
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+
+import java.io.IOException;
+
+/**
+ * Points requests built against a fixed placeholder base URL at the base URL
+ * currently in settings. Retrofit and the OkHttp client are built once, so a
+ * settings change only affects the next request and never drops the
+ * connection pool. The parsed URL is cached per settings version.
+ */
+public class BaseUrlInterceptor implements Interceptor {
+
+    private final SettingsRepository settingsRepository;
+    private final HttpUrl placeholder;
+    private final String placeholderPrefix;
+
+    private volatile CachedBaseUrl cached;
+
+    private static final class CachedBaseUrl {
+        final long settingsVersion;
+        final HttpUrl baseUrl;
+
+        CachedBaseUrl(long settingsVersion, HttpUrl baseUrl) {
+            this.settingsVersion = settingsVersion;
+            this.baseUrl = baseUrl;
+        }
+    }
+
+    public BaseUrlInterceptor(SettingsRepository settingsRepository, HttpUrl placeholder) {
+        this.settingsRepository = settingsRepository;
+        this.placeholder = placeholder;
+        this.placeholderPrefix = placeholder.toString();
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        HttpUrl baseUrl = currentBaseUrl();
+        String url = request.url().toString();
+
+        if (baseUrl.equals(placeholder) || !url.startsWith(placeholderPrefix)) {
+            return chain.proceed(request);
+        }
+
+        HttpUrl target = baseUrl.resolve(url.substring(placeholderPrefix.length()));
+        if (target == null) {
+            return chain.proceed(request);
+        }
+        return chain.proceed(request.newBuilder().url(target).build());
+    }
+
+    private HttpUrl currentBaseUrl() {
+        Settings settings = settingsRepository.get();
+        CachedBaseUrl current = cached;
+        if (current != null && current.settingsVersion == settings.version) {
+            return current.baseUrl;
+        }
+
+        HttpUrl parsed = parse(settings.apiBaseUrl);
+        cached = new CachedBaseUrl(settings.version, parsed != null ? parsed : placeholder);
+        return cached.baseUrl;
+    }
+
+    /**
+     * Parses a configured base URL, adding the trailing slash relative paths
+     * need. Returns null for empty or malformed values.
+     */
+    static HttpUrl parse(String baseUrl) {
+        if (baseUrl == null || baseUrl.trim().isEmpty()) {
+            return null;
+        }
+
+        String normalized = baseUrl.trim();
+        if (!normalized.endsWith("/")) {
+            normalized += "/";
+        }
+        return HttpUrl.parse(normalized);
+    }
+}
@@ -0,0 +1,90 @@
+package com.demoody.missedcall.network;
+
+import android.util.Log;
+
+/**
+ * Process-wide breaker around backend delivery. After enough consecutive
+ * failures it opens and rejects sends until a jittered backoff has passed;
+ * the next caller then probes the backend, and one success closes it.
+ */
+public class CircuitBreaker {
+
+    private static final String TAG = "CircuitBreaker";
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final DeliveryPolicy policy;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private int openCount;
+    private long retryAt;
+
+    public CircuitBreaker(DeliveryPolicy policy) {
+        this.policy = policy;
+    }
+
+    /**
+     * False while open. Once the open period has passed this returns true
+     * and moves to HALF_OPEN; the caller should then probe before sending.
+     */
+    public synchronized boolean allowRequest(long now) {
+        if (state == State.OPEN && now >= retryAt) {
+            state = State.HALF_OPEN;
+        }
+        return state != State.OPEN;
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    public synchronized void recordSuccess() {
+        if (state != State.CLOSED) {
+            Log.d(TAG, "Backend reachable again, closing breaker");
+        }
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+        openCount = 0;
+    }
+
+    public synchronized void recordFailure(long now) {
+        consecutiveFailures++;
+
+        if (state == State.HALF_OPEN || consecutiveFailures >= policy.getBreakerFailureThreshold()) {
+            // Each failed probe doubles the ceiling of the next open period
+            openCount++;
+            state = State.OPEN;
+            retryAt = now + policy.backoffDelay(openCount);
+            Log.w(TAG, "Breaker open after " + consecutiveFailures + " failures, retry in "
+                + ((retryAt - now) / 1000) + "s");
+        }
+    }
+
+    /**
+     * A lost network explains the failures, so let the next run probe
+     * straight away instead of waiting out the open period.
+     *
+     * @return the time calls were being held until, or 0 if the breaker was closed
+     */
+    public synchronized long onNetworkRestored(long now) {
+        if (state == State.CLOSED) {
+            return 0;
+        }
+        long heldUntil = retryAt;
+        state = State.HALF_OPEN;
+        retryAt = now;
+        return heldUntil;
+    }
+
+    public synchronized int getConsecutiveFailures() {
+        return consecutiveFailures;
+    }
+
+    /**
+     * When an open breaker will next let a probe through.
+     */
+    public synchronized long getRetryAt() {
+        return retryAt;
+    }
+}
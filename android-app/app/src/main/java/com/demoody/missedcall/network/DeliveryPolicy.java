@@ -0,0 +1,87 @@
+package com.demoody.missedcall.network;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Retry timing for backend delivery: exponential backoff with full jitter,
+ * so devices that failed together do not all retry together.
+ */
+public final class DeliveryPolicy {
+
+    // Keeps a retried row from being due again within the same dispatch run
+    private static final long MIN_DELAY_MILLIS = TimeUnit.SECONDS.toMillis(1);
+
+    private final long baseDelayMillis;
+    private final long maxDelayMillis;
+    private final int maxAttempts;
+    private final int breakerFailureThreshold;
+
+    private DeliveryPolicy(Builder builder) {
+        this.baseDelayMillis = builder.baseDelayMillis;
+        this.maxDelayMillis = builder.maxDelayMillis;
+        this.maxAttempts = builder.maxAttempts;
+        this.breakerFailureThreshold = builder.breakerFailureThreshold;
+    }
+
+    /**
+     * A random delay between zero and min(max, base * 2^(attempt - 1)).
+     *
+     * @param attempt 1 for the first retry
+     */
+    public long backoffDelay(int attempt) {
+        int exponent = Math.max(0, Math.min(attempt - 1, 30));
+        long ceiling = baseDelayMillis << exponent;
+        if (ceiling <= 0 || ceiling > maxDelayMillis) {
+            ceiling = maxDelayMillis;
+        }
+        return Math.max(MIN_DELAY_MILLIS, ThreadLocalRandom.current().nextLong(ceiling + 1));
+    }
+
+    /**
+     * Attempts a call gets before it is marked FAILED. Attempts are only
+     * spent on per-item rejections, not while the backend is unreachable.
+     */
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    /**
+     * Consecutive unreachable-backend failures that open the circuit breaker.
+     */
+    public int getBreakerFailureThreshold() {
+        return breakerFailureThreshold;
+    }
+
+    public static class Builder {
+
+        private long baseDelayMillis = TimeUnit.SECONDS.toMillis(30);
+        private long maxDelayMillis = TimeUnit.HOURS.toMillis(1);
+        private int maxAttempts = 5;
+        private int breakerFailureThreshold = 3;
+
+        public Builder setBaseDelay(long delay, TimeUnit unit) {
+            this.baseDelayMillis = Math.max(1, unit.toMillis(delay));
+            return this;
+        }
+
+        public Builder setMaxDelay(long delay, TimeUnit unit) {
+            this.maxDelayMillis = Math.max(1, unit.toMillis(delay));
+            return this;
+        }
+
+        public Builder setMaxAttempts(int maxAttempts) {
+            this.maxAttempts = Math.max(1, maxAttempts);
+            return this;
+        }
+
+        public Builder setBreakerFailureThreshold(int threshold) {
+            this.breakerFailureThreshold = Math.max(1, threshold);
+            return this;
+        }
+
+        public DeliveryPolicy build() {
+            return new DeliveryPolicy(this);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.demoody.missedcall.network;
+
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.GzipSink;
+import okio.Okio;
+
+import java.io.IOException;
+
+/**
+ * Gzips request bodies above {@link #MIN_GZIP_BYTES}. The compressed body is
+ * buffered so it keeps a Content-Length, which PHP behind FastCGI handles
+ * more reliably than chunked uploads. Small bodies are sent as-is since
+ * gzip's header would outweigh the savings.
+ */
+public class GzipRequestInterceptor implements Interceptor {
+
+    static final long MIN_GZIP_BYTES = 512;
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        RequestBody body = request.body();
+
+        if (body == null || request.header("Content-Encoding") != null
+                || body.contentLength() < MIN_GZIP_BYTES) {
+            return chain.proceed(request);
+        }
+
+        Request compressed = request.newBuilder()
+            .header("Content-Encoding", "gzip")
+            .method(request.method(), gzip(body))
+            .build();
+        return chain.proceed(compressed);
+    }
+
+    private static RequestBody gzip(RequestBody body) throws IOException {
+        Buffer buffer = new Buffer();
+        try (BufferedSink sink = Okio.buffer(new GzipSink(buffer))) {
+            body.writeTo(sink);
+        }
+
+        MediaType contentType = body.contentType();
+        return RequestBody.create(buffer.readByteString(), contentType);
+    }
+}
@@ -0,0 +1,125 @@
+package com.demoody.missedcall.network;
+
+import android.content.Context;
+import android.net.ConnectivityManager;
+import android.net.Network;
+import android.net.NetworkCapabilities;
+import android.net.NetworkRequest;
+import android.os.Build;
+import android.util.Log;
+
+import com.demoody.missedcall.utils.SettingsRepository;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tracks whether a network the dispatch policy allows is up, so the worker
+ * never spends an attempt on a known-dead link, and notifies a listener the
+ * moment a usable network returns.
+ */
+public class NetworkMonitor {
+
+    private static final String TAG = "NetworkMonitor";
+
+    public interface Listener {
+        void onNetworkRestored();
+    }
+
+    private final ConnectivityManager connectivityManager;
+    private final SettingsRepository settingsRepository;
+    private final Listener listener;
+    private final Map<Network, NetworkCapabilities> networks = new ConcurrentHashMap<>();
+    private volatile boolean registered;
+    private boolean usable;
+
+    private final ConnectivityManager.NetworkCallback callback = new ConnectivityManager.NetworkCallback() {
+        @Override
+        public void onAvailable(Network network) {
+            NetworkCapabilities capabilities = connectivityManager.getNetworkCapabilities(network);
+            if (capabilities != null) {
+                networks.put(network, capabilities);
+            }
+            onNetworksChanged();
+        }
+
+        @Override
+        public void onCapabilitiesChanged(Network network, NetworkCapabilities capabilities) {
+            networks.put(network, capabilities);
+            onNetworksChanged();
+        }
+
+        @Override
+        public void onLost(Network network) {
+            networks.remove(network);
+            onNetworksChanged();
+        }
+    };
+
+    public NetworkMonitor(Context context, SettingsRepository settingsRepository, Listener listener) {
+        this.connectivityManager = (ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE);
+        this.settingsRepository = settingsRepository;
+        this.listener = listener;
+    }
+
+    public void start() {
+        if (connectivityManager == null) {
+            return;
+        }
+
+        NetworkRequest request = new NetworkRequest.Builder()
+            .addCapability(NetworkCapabilities.NET_CAPABILITY_INTERNET)
+            .build();
+
+        try {
+            connectivityManager.registerNetworkCallback(request, callback);
+            registered = true;
+        } catch (RuntimeException e) {
+            Log.w(TAG, "Could not register network callback", e);
+        }
+    }
+
+    /**
+     * True if some connected network satisfies the metered policy. Assumes
+     * connected if monitoring could not be started.
+     */
+    public boolean canDispatch() {
+        if (!registered) {
+            return true;
+        }
+
+        boolean requireUnmetered = settingsRepository.get().requireUnmeteredNetwork;
+        for (NetworkCapabilities capabilities : networks.values()) {
+            if (isUsable(capabilities, requireUnmetered)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isUsable(NetworkCapabilities capabilities, boolean requireUnmetered) {
+        if (!capabilities.hasCapability(NetworkCapabilities.NET_CAPABILITY_INTERNET)) {
+            return false;
+        }
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M
+                && !capabilities.hasCapability(NetworkCapabilities.NET_CAPABILITY_VALIDATED)) {
+            return false;
+        }
+        return !requireUnmetered || capabilities.hasCapability(NetworkCapabilities.NET_CAPABILITY_NOT_METERED);
+    }
+
+    private void onNetworksChanged() {
+        boolean nowUsable = canDispatch();
+        boolean restored;
+
+        synchronized (this) {
+            restored = nowUsable && !usable;
+            usable = nowUsable;
+        }
+
+        if (restored) {
+            Log.d(TAG, "Usable network available, releasing queue");
+            listener.onNetworkRestored();
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.demoody.missedcall.network;
+
+import okhttp3.Authenticator;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.Route;
+
+import java.io.IOException;
+
+/**
+ * Answers a 401 by refreshing the token once and replaying the request with
+ * it. A second 401 for the same request is returned to the caller.
+ */
+public class TokenAuthenticator implements Authenticator {
+
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    private final TokenManager tokenManager;
+
+    public TokenAuthenticator(TokenManager tokenManager) {
+        this.tokenManager = tokenManager;
+    }
+
+    @Override
+    public Request authenticate(Route route, Response response) throws IOException {
+        if (response.priorResponse() != null) {
+            return null;
+        }
+
+        String header = response.request().header("Authorization");
+        String rejectedToken = header != null && header.startsWith(BEARER_PREFIX)
+            ? header.substring(BEARER_PREFIX.length()) : null;
+
+        String token = tokenManager.refresh(rejectedToken);
+        if (token == null || token.equals(rejectedToken)) {
+            return null;
+        }
+
+        return response.request().newBuilder()
+            .header("Authorization", BEARER_PREFIX + token)
+            .build();
+    }
+}
@@ -0,0 +1,101 @@
+package com.demoody.missedcall.network;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.demoody.missedcall.network.requests.DeviceRegistrationRequest;
+import com.demoody.missedcall.network.responses.ApiResponse;
+import com.demoody.missedcall.network.responses.DeviceRegistrationResponse;
+import com.demoody.missedcall.utils.DeviceUtils;
+import com.demoody.missedcall.utils.PreferenceManager;
+
+import retrofit2.Response;
+
+import java.io.IOException;
+import java.util.concurrent.Executor;
+
+/**
+ * Holds the API token in memory, so requests never read preferences, and
+ * obtains a new one from {@code register_device} when there is none or the
+ * backend rejects it. Refreshes are single-flight: callers that arrive while
+ * one is running wait for it and reuse its token.
+ */
+public class TokenManager {
+
+    private static final String TAG = "TokenManager";
+
+    private final Context context;
+    private final PreferenceManager preferenceManager;
+    private final Executor persistExecutor;
+    private volatile String token;
+    private ApiService registrationService;
+
+    TokenManager(Context context, Executor persistExecutor) {
+        this.context = context.getApplicationContext();
+        this.preferenceManager = new PreferenceManager(this.context);
+        this.persistExecutor = persistExecutor;
+        this.token = preferenceManager.getApiToken();
+    }
+
+    /**
+     * Service used for registration. It must not use
+     * {@link TokenAuthenticator}, or a rejected registration would recurse.
+     */
+    synchronized void setRegistrationService(ApiService registrationService) {
+        this.registrationService = registrationService;
+    }
+
+    /**
+     * Current token, or an empty string if the device has not registered yet.
+     */
+    public String getToken() {
+        return token;
+    }
+
+    /**
+     * Returns the current token, registering the device first if there is none.
+     */
+    public String ensureToken() throws IOException {
+        String current = token;
+        if (!current.isEmpty()) {
+            return current;
+        }
+        String refreshed = refresh(null);
+        return refreshed != null ? refreshed : "";
+    }
+
+    /**
+     * Replaces {@code rejectedToken} by registering the device again. If
+     * another caller already replaced it, that token is returned without a
+     * second registration.
+     *
+     * @return the new token, or null if registration failed
+     */
+    public synchronized String refresh(String rejectedToken) throws IOException {
+        String current = token;
+        if (!current.isEmpty() && !current.equals(rejectedToken)) {
+            return current;
+        }
+        if (registrationService == null) {
+            return null;
+        }
+
+        DeviceRegistrationRequest request = new DeviceRegistrationRequest(
+            DeviceUtils.getDeviceId(context), DeviceUtils.getDeviceName());
+        Response<ApiResponse<DeviceRegistrationResponse>> response =
+            registrationService.registerDevice(request).execute();
+
+        ApiResponse<DeviceRegistrationResponse> body = response.body();
+        if (!response.isSuccessful() || body == null || !body.success
+                || body.data == null || body.data.apiToken == null || body.data.apiToken.isEmpty()) {
+            Log.w(TAG, "Device registration failed: HTTP " + response.code());
+            return null;
+        }
+
+        String newToken = body.data.apiToken;
+        token = newToken;
+        persistExecutor.execute(() -> preferenceManager.setApiToken(newToken));
+        Log.d(TAG, "Device registered, token refreshed");
+        return newToken;
+    }
+}
@@ -0,0 +1,52 @@
+package com.demoody.missedcall.network.json;
+
+import com.demoody.missedcall.network.requests.BatchMissedCallRequest;
+import com.demoody.missedcall.network.requests.DeviceRegistrationRequest;
+import com.demoody.missedcall.network.requests.MissedCallRequest;
+import com.demoody.missedcall.network.requests.OptOutRequest;
+import com.demoody.missedcall.network.responses.BatchMissedCallResponse;
+import com.demoody.missedcall.network.responses.BlockedNumbersResponse;
+import com.demoody.missedcall.network.responses.DeviceRegistrationResponse;
+import com.demoody.missedcall.network.responses.LogsResponse;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+/**
+ * Builds the Gson instance used by Retrofit, with a hand-written streaming
+ * adapter for every request and response type so nothing is bound by
+ * reflection. Adding a field to a DTO means adding it to its adapter too.
+ */
+public final class ApiJson {
+
+    private ApiJson() {}
+
+    public static Gson create() {
+        RequestAdapters.MissedCallRequestAdapter missedCallAdapter = new RequestAdapters.MissedCallRequestAdapter();
+        ResponseAdapters.ItemResultAdapter itemResultAdapter = new ResponseAdapters.ItemResultAdapter();
+        ResponseAdapters.CallLogAdapter callLogAdapter = new ResponseAdapters.CallLogAdapter();
+        ResponseAdapters.StatsAdapter statsAdapter = new ResponseAdapters.StatsAdapter();
+        ResponseAdapters.PaginationAdapter paginationAdapter = new ResponseAdapters.PaginationAdapter();
+        ResponseAdapters.BlockedNumberEntryAdapter blockedNumberAdapter = new ResponseAdapters.BlockedNumberEntryAdapter();
+
+        return new GsonBuilder()
+            .registerTypeAdapter(MissedCallRequest.class, missedCallAdapter)
+            .registerTypeAdapter(BatchMissedCallRequest.class,
+                new RequestAdapters.BatchMissedCallRequestAdapter(missedCallAdapter))
+            .registerTypeAdapter(DeviceRegistrationRequest.class, new RequestAdapters.DeviceRegistrationRequestAdapter())
+            .registerTypeAdapter(OptOutRequest.class, new RequestAdapters.OptOutRequestAdapter())
+            .registerTypeAdapter(BatchMissedCallResponse.ItemResult.class, itemResultAdapter)
+            .registerTypeAdapter(BatchMissedCallResponse.class,
+                new ResponseAdapters.BatchMissedCallResponseAdapter(itemResultAdapter))
+            .registerTypeAdapter(DeviceRegistrationResponse.class, new ResponseAdapters.DeviceRegistrationResponseAdapter())
+            .registerTypeAdapter(LogsResponse.CallLog.class, callLogAdapter)
+            .registerTypeAdapter(LogsResponse.Stats.class, statsAdapter)
+            .registerTypeAdapter(LogsResponse.Pagination.class, paginationAdapter)
+            .registerTypeAdapter(LogsResponse.class,
+                new ResponseAdapters.LogsResponseAdapter(callLogAdapter, statsAdapter, paginationAdapter))
+            .registerTypeAdapter(BlockedNumbersResponse.Entry.class, blockedNumberAdapter)
+            .registerTypeAdapter(BlockedNumbersResponse.class,
+                new ResponseAdapters.BlockedNumbersResponseAdapter(blockedNumberAdapter))
+            .registerTypeAdapterFactory(new ApiResponseAdapterFactory())
+            .create();
+    }
+}
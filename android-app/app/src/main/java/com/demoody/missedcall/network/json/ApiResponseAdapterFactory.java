@@ -0,0 +1,81 @@
+package com.demoody.missedcall.network.json;
+
+import com.demoody.missedcall.network.responses.ApiResponse;
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+
+/**
+ * Reads the {@code {success, data, error, timestamp}} envelope, delegating
+ * {@code data} to the adapter registered for the response's type argument.
+ */
+final class ApiResponseAdapterFactory implements TypeAdapterFactory {
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+        if (type.getRawType() != ApiResponse.class) {
+            return null;
+        }
+
+        Type dataType = Object.class;
+        if (type.getType() instanceof ParameterizedType) {
+            dataType = ((ParameterizedType) type.getType()).getActualTypeArguments()[0];
+        }
+        TypeAdapter<?> dataAdapter = gson.getAdapter(TypeToken.get(dataType));
+        return (TypeAdapter<T>) new ApiResponseAdapter<>(dataAdapter);
+    }
+
+    private static final class ApiResponseAdapter<D> extends TypeAdapter<ApiResponse<D>> {
+
+        private final TypeAdapter<D> dataAdapter;
+
+        ApiResponseAdapter(TypeAdapter<D> dataAdapter) {
+            this.dataAdapter = dataAdapter;
+        }
+
+        @Override
+        public void write(JsonWriter out, ApiResponse<D> value) {
+            throw new UnsupportedOperationException("Response bodies are read-only");
+        }
+
+        @Override
+        public ApiResponse<D> read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+
+            ApiResponse<D> response = new ApiResponse<>();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "success":
+                        response.success = JsonReaders.nextBoolean(in);
+                        break;
+                    case "data":
+                        response.data = dataAdapter.read(in);
+                        break;
+                    case "error":
+                        response.error = JsonReaders.nextStringOrNull(in);
+                        break;
+                    case "timestamp":
+                        response.timestamp = JsonReaders.nextStringOrNull(in);
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+            return response;
+        }
+    }
+}
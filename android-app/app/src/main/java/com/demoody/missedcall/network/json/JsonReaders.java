@@ -0,0 +1,76 @@
+package com.demoody.missedcall.network.json;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+
+/**
+ * Lenient scalar reads for the backend's JSON. PDO returns MySQL numbers as
+ * strings and SUM() over no rows as null, so numeric fields may arrive as
+ * numbers, numeric strings or null.
+ */
+final class JsonReaders {
+
+    private JsonReaders() {}
+
+    static String nextStringOrNull(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return null;
+        }
+        return reader.nextString();
+    }
+
+    static long nextLong(JsonReader reader, long defaultValue) throws IOException {
+        JsonToken token = reader.peek();
+        if (token == JsonToken.NULL) {
+            reader.nextNull();
+            return defaultValue;
+        }
+        if (token == JsonToken.STRING) {
+            String value = reader.nextString();
+            try {
+                return Long.parseLong(value.trim());
+            } catch (NumberFormatException e) {
+                return defaultValue;
+            }
+        }
+        return reader.nextLong();
+    }
+
+    static Long nextLongOrNull(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return null;
+        }
+        return nextLong(reader, 0);
+    }
+
+    static int nextInt(JsonReader reader, int defaultValue) throws IOException {
+        return (int) nextLong(reader, defaultValue);
+    }
+
+    static Integer nextIntOrNull(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return null;
+        }
+        return nextInt(reader, 0);
+    }
+
+    static boolean nextBoolean(JsonReader reader) throws IOException {
+        switch (reader.peek()) {
+            case NULL:
+                reader.nextNull();
+                return false;
+            case NUMBER:
+                return reader.nextInt() != 0;
+            case STRING:
+                String value = reader.nextString();
+                return "1".equals(value) || "true".equalsIgnoreCase(value);
+            default:
+                return reader.nextBoolean();
+        }
+    }
+}
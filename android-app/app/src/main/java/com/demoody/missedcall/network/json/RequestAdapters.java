@@ -0,0 +1,102 @@
+package com.demoody.missedcall.network.json;
+
+import com.demoody.missedcall.network.requests.BatchMissedCallRequest;
+import com.demoody.missedcall.network.requests.DeviceRegistrationRequest;
+import com.demoody.missedcall.network.requests.MissedCallRequest;
+import com.demoody.missedcall.network.requests.OptOutRequest;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+/**
+ * Streaming writers for the request bodies. Requests are only ever sent,
+ * so reading one is unsupported.
+ */
+final class RequestAdapters {
+
+    private RequestAdapters() {}
+
+    private abstract static class WriteOnlyAdapter<T> extends TypeAdapter<T> {
+        @Override
+        public T read(JsonReader in) {
+            throw new UnsupportedOperationException("Request bodies are write-only");
+        }
+    }
+
+    static final class MissedCallRequestAdapter extends WriteOnlyAdapter<MissedCallRequest> {
+        @Override
+        public void write(JsonWriter out, MissedCallRequest value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            out.name("device_id").value(value.deviceId);
+            out.name("phone_number").value(value.phoneNumber);
+            out.name("call_time").value(value.callTime);
+            out.name("message_text").value(value.messageText);
+            out.name("delay_minutes").value(value.delayMinutes);
+            out.name("idempotency_key").value(value.idempotencyKey);
+            out.endObject();
+        }
+    }
+
+    static final class BatchMissedCallRequestAdapter extends WriteOnlyAdapter<BatchMissedCallRequest> {
+
+        private final MissedCallRequestAdapter callAdapter;
+
+        BatchMissedCallRequestAdapter(MissedCallRequestAdapter callAdapter) {
+            this.callAdapter = callAdapter;
+        }
+
+        @Override
+        public void write(JsonWriter out, BatchMissedCallRequest value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            out.name("device_id").value(value.deviceId);
+            out.name("calls");
+            if (value.calls == null) {
+                out.nullValue();
+            } else {
+                out.beginArray();
+                for (int i = 0, n = value.calls.size(); i < n; i++) {
+                    callAdapter.write(out, value.calls.get(i));
+                }
+                out.endArray();
+            }
+            out.endObject();
+        }
+    }
+
+    static final class DeviceRegistrationRequestAdapter extends WriteOnlyAdapter<DeviceRegistrationRequest> {
+        @Override
+        public void write(JsonWriter out, DeviceRegistrationRequest value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            out.name("device_id").value(value.deviceId);
+            out.name("device_name").value(value.deviceName);
+            out.endObject();
+        }
+    }
+
+    static final class OptOutRequestAdapter extends WriteOnlyAdapter<OptOutRequest> {
+        @Override
+        public void write(JsonWriter out, OptOutRequest value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            out.name("phone_number").value(value.phoneNumber);
+            out.endObject();
+        }
+    }
+}
@@ -0,0 +1,356 @@
+package com.demoody.missedcall.network.json;
+
+import com.demoody.missedcall.network.responses.BatchMissedCallResponse;
+import com.demoody.missedcall.network.responses.BlockedNumbersResponse;
+import com.demoody.missedcall.network.responses.DeviceRegistrationResponse;
+import com.demoody.missedcall.network.responses.LogsResponse;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streaming readers for the response bodies. Unknown fields are skipped so
+ * the backend can add fields without breaking older clients. Responses are
+ * only ever received, so writing one is unsupported.
+ */
+final class ResponseAdapters {
+
+    private ResponseAdapters() {}
+
+    private abstract static class ReadOnlyAdapter<T> extends TypeAdapter<T> {
+
+        @Override
+        public void write(JsonWriter out, T value) {
+            throw new UnsupportedOperationException("Response bodies are read-only");
+        }
+
+        @Override
+        public T read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            T value = create();
+            in.beginObject();
+            while (in.hasNext()) {
+                readField(in, in.nextName(), value);
+            }
+            in.endObject();
+            return value;
+        }
+
+        abstract T create();
+
+        /** Reads the value of {@code name}, or skips it if unknown. */
+        abstract void readField(JsonReader in, String name, T value) throws IOException;
+    }
+
+    private static <T> List<T> readList(JsonReader in, TypeAdapter<T> elementAdapter) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        List<T> list = new ArrayList<>();
+        in.beginArray();
+        while (in.hasNext()) {
+            list.add(elementAdapter.read(in));
+        }
+        in.endArray();
+        return list;
+    }
+
+    static final class ItemResultAdapter extends ReadOnlyAdapter<BatchMissedCallResponse.ItemResult> {
+        @Override
+        BatchMissedCallResponse.ItemResult create() {
+            return new BatchMissedCallResponse.ItemResult();
+        }
+
+        @Override
+        void readField(JsonReader in, String name, BatchMissedCallResponse.ItemResult value) throws IOException {
+            switch (name) {
+                case "index":
+                    value.index = JsonReaders.nextInt(in, 0);
+                    break;
+                case "success":
+                    value.success = JsonReaders.nextBoolean(in);
+                    break;
+                case "status":
+                    value.status = JsonReaders.nextStringOrNull(in);
+                    break;
+                case "call_id":
+                    value.callId = JsonReaders.nextLongOrNull(in);
+                    break;
+                case "error":
+                    value.error = JsonReaders.nextStringOrNull(in);
+                    break;
+                case "code":
+                    value.code = JsonReaders.nextIntOrNull(in);
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+    }
+
+    static final class BatchMissedCallResponseAdapter extends ReadOnlyAdapter<BatchMissedCallResponse> {
+
+        private final ItemResultAdapter itemAdapter;
+
+        BatchMissedCallResponseAdapter(ItemResultAdapter itemAdapter) {
+            this.itemAdapter = itemAdapter;
+        }
+
+        @Override
+        BatchMissedCallResponse create() {
+            return new BatchMissedCallResponse();
+        }
+
+        @Override
+        void readField(JsonReader in, String name, BatchMissedCallResponse value) throws IOException {
+            switch (name) {
+                case "message":
+                    value.message = JsonReaders.nextStringOrNull(in);
+                    break;
+                case "processed_count":
+                    value.processedCount = JsonReaders.nextInt(in, 0);
+                    break;
+                case "results":
+                    value.results = readList(in, itemAdapter);
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+    }
+
+    static final class BlockedNumberEntryAdapter extends ReadOnlyAdapter<BlockedNumbersResponse.Entry> {
+        @Override
+        BlockedNumbersResponse.Entry create() {
+            return new BlockedNumbersResponse.Entry();
+        }
+
+        @Override
+        void readField(JsonReader in, String name, BlockedNumbersResponse.Entry value) throws IOException {
+            switch (name) {
+                case "phone_number":
+                    value.phoneNumber = JsonReaders.nextStringOrNull(in);
+                    break;
+                case "blocked":
+                    value.blocked = JsonReaders.nextBoolean(in);
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+    }
+
+    static final class BlockedNumbersResponseAdapter extends ReadOnlyAdapter<BlockedNumbersResponse> {
+
+        private final BlockedNumberEntryAdapter entryAdapter;
+
+        BlockedNumbersResponseAdapter(BlockedNumberEntryAdapter entryAdapter) {
+            this.entryAdapter = entryAdapter;
+        }
+
+        @Override
+        BlockedNumbersResponse create() {
+            return new BlockedNumbersResponse();
+        }
+
+        @Override
+        void readField(JsonReader in, String name, BlockedNumbersResponse value) throws IOException {
+            switch (name) {
+                case "numbers":
+                    value.numbers = readList(in, entryAdapter);
+                    break;
+                case "next_cursor":
+                    value.nextCursor = JsonReaders.nextStringOrNull(in);
+                    break;
+                case "has_more":
+                    value.hasMore = JsonReaders.nextBoolean(in);
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+    }
+
+    static final class DeviceRegistrationResponseAdapter extends ReadOnlyAdapter<DeviceRegistrationResponse> {
+        @Override
+        DeviceRegistrationResponse create() {
+            return new DeviceRegistrationResponse();
+        }
+
+        @Override
+        void readField(JsonReader in, String name, DeviceRegistrationResponse value) throws IOException {
+            switch (name) {
+                case "message":
+                    value.message = JsonReaders.nextStringOrNull(in);
+                    break;
+                case "api_token":
+                    value.apiToken = JsonReaders.nextStringOrNull(in);
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+    }
+
+    static final class CallLogAdapter extends ReadOnlyAdapter<LogsResponse.CallLog> {
+        @Override
+        LogsResponse.CallLog create() {
+            return new LogsResponse.CallLog();
+        }
+
+        @Override
+        void readField(JsonReader in, String name, LogsResponse.CallLog value) throws IOException {
+            switch (name) {
+                case "id":
+                    value.id = JsonReaders.nextLong(in, 0);
+                    break;
+                case "device_id":
+                    value.deviceId = JsonReaders.nextStringOrNull(in);
+                    break;
+                case "phone_number":
+                    value.phoneNumber = JsonReaders.nextStringOrNull(in);
+                    break;
+                case "call_time":
+                    value.callTime = JsonReaders.nextStringOrNull(in);
+                    break;
+                case "scheduled_time":
+                    value.scheduledTime = JsonReaders.nextStringOrNull(in);
+                    break;
+                case "status":
+                    value.status = JsonReaders.nextStringOrNull(in);
+                    break;
+                case "message_text":
+                    value.messageText = JsonReaders.nextStringOrNull(in);
+                    break;
+                case "provider_msg_id":
+                    value.providerMessageId = JsonReaders.nextStringOrNull(in);
+                    break;
+                case "attempt_count":
+                    value.attemptCount = JsonReaders.nextInt(in, 0);
+                    break;
+                case "error_message":
+                    value.errorMessage = JsonReaders.nextStringOrNull(in);
+                    break;
+                case "created_at":
+                    value.createdAt = JsonReaders.nextStringOrNull(in);
+                    break;
+                case "sent_at":
+                    value.sentAt = JsonReaders.nextStringOrNull(in);
+                    break;
+                case "sent_at_ms":
+                    value.sentAtMillis = JsonReaders.nextLongOrNull(in);
+                    break;
+                case "idempotency_key":
+                    value.idempotencyKey = JsonReaders.nextStringOrNull(in);
+                    break;
+                case "updated_at":
+                    value.updatedAt = JsonReaders.nextStringOrNull(in);
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+    }
+
+    static final class StatsAdapter extends ReadOnlyAdapter<LogsResponse.Stats> {
+        @Override
+        LogsResponse.Stats create() {
+            return new LogsResponse.Stats();
+        }
+
+        @Override
+        void readField(JsonReader in, String name, LogsResponse.Stats value) throws IOException {
+            switch (name) {
+                case "total_calls":
+                    value.totalCalls = JsonReaders.nextInt(in, 0);
+                    break;
+                case "sent_count":
+                    value.sentCount = JsonReaders.nextInt(in, 0);
+                    break;
+                case "failed_count":
+                    value.failedCount = JsonReaders.nextInt(in, 0);
+                    break;
+                case "skipped_count":
+                    value.skippedCount = JsonReaders.nextInt(in, 0);
+                    break;
+                case "pending_count":
+                    value.pendingCount = JsonReaders.nextInt(in, 0);
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+    }
+
+    static final class PaginationAdapter extends ReadOnlyAdapter<LogsResponse.Pagination> {
+        @Override
+        LogsResponse.Pagination create() {
+            return new LogsResponse.Pagination();
+        }
+
+        @Override
+        void readField(JsonReader in, String name, LogsResponse.Pagination value) throws IOException {
+            switch (name) {
+                case "page":
+                    value.page = JsonReaders.nextInt(in, 0);
+                    break;
+                case "limit":
+                    value.limit = JsonReaders.nextInt(in, 0);
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+    }
+
+    static final class LogsResponseAdapter extends ReadOnlyAdapter<LogsResponse> {
+
+        private final CallLogAdapter callLogAdapter;
+        private final StatsAdapter statsAdapter;
+        private final PaginationAdapter paginationAdapter;
+
+        LogsResponseAdapter(CallLogAdapter callLogAdapter, StatsAdapter statsAdapter,
+                            PaginationAdapter paginationAdapter) {
+            this.callLogAdapter = callLogAdapter;
+            this.statsAdapter = statsAdapter;
+            this.paginationAdapter = paginationAdapter;
+        }
+
+        @Override
+        LogsResponse create() {
+            return new LogsResponse();
+        }
+
+        @Override
+        void readField(JsonReader in, String name, LogsResponse value) throws IOException {
+            switch (name) {
+                case "logs":
+                    value.logs = readList(in, callLogAdapter);
+                    break;
+                case "stats":
+                    value.stats = statsAdapter.read(in);
+                    break;
+                case "pagination":
+                    value.pagination = paginationAdapter.read(in);
+                    break;
+                case "next_cursor":
+                    value.nextCursor = JsonReaders.nextStringOrNull(in);
+                    break;
+                case "has_more":
+                    value.hasMore = JsonReaders.nextBoolean(in);
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.demoody.missedcall.network.requests;
+
+import com.google.gson.annotations.SerializedName;
+
+import java.util.List;
+
+public class BatchMissedCallRequest {
+    
+    @SerializedName("device_id")
+    public String deviceId;
+    
+    @SerializedName("calls")
+    public List<MissedCallRequest> calls;
+    
+    public BatchMissedCallRequest() {}
+    
+    public BatchMissedCallRequest(String deviceId, List<MissedCallRequest> calls) {
+        this.deviceId = deviceId;
+        this.calls = calls;
+    }
+}
@@ -19,13 +19,19 @@ public class MissedCallRequest {
     @SerializedName("delay_minutes")
     public int delayMinutes;
     
+    // Same value on every retry of a call; the backend returns the original result for repeats
+    @SerializedName("idempotency_key")
+    public String idempotencyKey;
+    
     public MissedCallRequest() {}
     
-    public MissedCallRequest(String deviceId, String phoneNumber, long callTime, String messageText, int delayMinutes) {
+    public MissedCallRequest(String deviceId, String phoneNumber, long callTime, String messageText, int delayMinutes,
+                             String idempotencyKey) {
         this.deviceId = deviceId;
         this.phoneNumber = phoneNumber;
         this.callTime = callTime;
         this.messageText = messageText;
         this.delayMinutes = delayMinutes;
+        this.idempotencyKey = idempotencyKey;
     }
 }
\ No newline at end of file
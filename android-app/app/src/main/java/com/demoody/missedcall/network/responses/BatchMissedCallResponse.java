@@ -0,0 +1,44 @@
+package com.demoody.missedcall.network.responses;
+
+import com.google.gson.annotations.SerializedName;
+
+import java.util.List;
+
+public class BatchMissedCallResponse {
+    
+    @SerializedName("message")
+    public String message;
+    
+    @SerializedName("processed_count")
+    public int processedCount;
+    
+    @SerializedName("results")
+    public List<ItemResult> results;
+    
+    public BatchMissedCallResponse() {}
+    
+    public static class ItemResult {
+        
+        // Position of the call in the request's "calls" array
+        @SerializedName("index")
+        public int index;
+        
+        @SerializedName("success")
+        public boolean success;
+        
+        @SerializedName("status")
+        public String status; // PENDING, SENT, FAILED, SKIPPED, BLOCKED
+        
+        @SerializedName("call_id")
+        public Long callId;
+        
+        @SerializedName("error")
+        public String error;
+        
+        // HTTP status the single-call endpoint would have returned for this item
+        @SerializedName("code")
+        public Integer code;
+        
+        public ItemResult() {}
+    }
+}
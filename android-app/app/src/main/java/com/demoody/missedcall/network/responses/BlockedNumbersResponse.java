@@ -0,0 +1,32 @@
+package com.demoody.missedcall.network.responses;
+
+import com.google.gson.annotations.SerializedName;
+
+import java.util.List;
+
+public class BlockedNumbersResponse {
+    
+    @SerializedName("numbers")
+    public List<Entry> numbers;
+    
+    // Pass back as "since" to get the next page of changes
+    @SerializedName("next_cursor")
+    public String nextCursor;
+    
+    @SerializedName("has_more")
+    public boolean hasMore;
+    
+    public BlockedNumbersResponse() {}
+    
+    public static class Entry {
+        
+        @SerializedName("phone_number")
+        public String phoneNumber;
+        
+        // false when the number has been unblocked since the cursor
+        @SerializedName("blocked")
+        public boolean blocked;
+        
+        public Entry() {}
+    }
+}
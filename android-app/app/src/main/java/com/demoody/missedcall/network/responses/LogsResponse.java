@@ -3,18 +3,110 @@ package com.demoody.missedcall.network.responses;
 import com.google.gson.annotations.SerializedName;
 
 import java.util.List;
-import java.util.Map;
 
 public class LogsResponse {
-    
+
     @SerializedName("logs")
-    public List<Map<String, Object>> logs;
-    
+    public List<CallLog> logs;
+
     @SerializedName("stats")
-    public Map<String, Object> stats;
-    
+    public Stats stats;
+
     @SerializedName("pagination")
-    public Map<String, Object> pagination;
-    
+    public Pagination pagination;
+
+    // Delta feed only (getLogChanges); pass next_cursor back as "since"
+    @SerializedName("next_cursor")
+    public String nextCursor;
+
+    @SerializedName("has_more")
+    public boolean hasMore;
+
     public LogsResponse() {}
-}
\ No newline at end of file
+
+    /**
+     * One row of the server's missed_calls table. Times are the server's
+     * DATETIME strings (yyyy-MM-dd HH:mm:ss).
+     */
+    public static class CallLog {
+
+        @SerializedName("id")
+        public long id;
+
+        @SerializedName("device_id")
+        public String deviceId;
+
+        @SerializedName("phone_number")
+        public String phoneNumber;
+
+        @SerializedName("call_time")
+        public String callTime;
+
+        @SerializedName("scheduled_time")
+        public String scheduledTime;
+
+        @SerializedName("status")
+        public String status; // PENDING, SENT, FAILED, SKIPPED, BLOCKED
+
+        @SerializedName("message_text")
+        public String messageText;
+
+        @SerializedName("provider_msg_id")
+        public String providerMessageId;
+
+        @SerializedName("attempt_count")
+        public int attemptCount;
+
+        @SerializedName("error_message")
+        public String errorMessage;
+
+        @SerializedName("created_at")
+        public String createdAt;
+
+        @SerializedName("sent_at")
+        public String sentAt;
+
+        // Delta feed only: sent_at as epoch millis, so no server time zone is assumed
+        @SerializedName("sent_at_ms")
+        public Long sentAtMillis;
+
+        @SerializedName("idempotency_key")
+        public String idempotencyKey;
+
+        @SerializedName("updated_at")
+        public String updatedAt;
+
+        public CallLog() {}
+    }
+
+    public static class Stats {
+
+        @SerializedName("total_calls")
+        public int totalCalls;
+
+        @SerializedName("sent_count")
+        public int sentCount;
+
+        @SerializedName("failed_count")
+        public int failedCount;
+
+        @SerializedName("skipped_count")
+        public int skippedCount;
+
+        @SerializedName("pending_count")
+        public int pendingCount;
+
+        public Stats() {}
+    }
+
+    public static class Pagination {
+
+        @SerializedName("page")
+        public int page;
+
+        @SerializedName("limit")
+        public int limit;
+
+        public Pagination() {}
+    }
+}
@@ -7,7 +7,7 @@ import android.util.Log;
 
 import com.demoody.missedcall.services.MissedCallService;
 import com.demoody.missedcall.utils.PermissionUtils;
-import com.demoody.missedcall.utils.PreferenceManager;
+import com.demoody.missedcall.utils.SettingsRepository;
 
 public class BootReceiver extends BroadcastReceiver {
     
@@ -23,10 +23,8 @@ public class BootReceiver extends BroadcastReceiver {
             
             Log.d(TAG, "Boot/Package event received: " + action);
             
-            PreferenceManager prefManager = new PreferenceManager(context);
-            
             // Only start service if auto-responder is enabled and permissions are granted
-            if (prefManager.isAutoResponderEnabled() && 
+            if (SettingsRepository.getInstance(context).get().autoResponderEnabled && 
                 PermissionUtils.hasRequiredPermissions(context)) {
                 
                 Log.d(TAG, "Starting MissedCallService after boot");
@@ -3,60 +3,84 @@ package com.demoody.missedcall.receivers;
 import android.content.BroadcastReceiver;
 import android.content.Context;
 import android.content.Intent;
+import android.os.SystemClock;
 import android.telephony.TelephonyManager;
 import android.util.Log;
 
 import com.demoody.missedcall.services.MissedCallService;
-import com.demoody.missedcall.utils.CallStateManager;
+import com.demoody.missedcall.utils.CallSessionTracker;
 import com.demoody.missedcall.utils.PermissionUtils;
 
+import java.util.List;
+
 public class CallReceiver extends BroadcastReceiver {
     
     private static final String TAG = "CallReceiver";
+
+    // SubscriptionManager.EXTRA_SUBSCRIPTION_INDEX (API 30) and the older extra OEMs still send
+    private static final String EXTRA_SUBSCRIPTION_INDEX = "android.telephony.extra.SUBSCRIPTION_INDEX";
+    private static final String EXTRA_SUBSCRIPTION_LEGACY = "subscription";
     
     @Override
     public void onReceive(Context context, Intent intent) {
+        String action = intent.getAction();
+        if (!TelephonyManager.ACTION_PHONE_STATE_CHANGED.equals(action)) {
+            return;
+        }
+        
+        if (MissedCallService.isDetectingInProcess()) {
+            // The running service saw this transition, number included. Replaying a
+            // late broadcast after its IDLE would strand the session
+            return;
+        }
+        
+        String state = intent.getStringExtra(TelephonyManager.EXTRA_STATE);
+        
         if (!PermissionUtils.hasRequiredPermissions(context)) {
             Log.w(TAG, "Missing required permissions");
             return;
         }
         
-        String action = intent.getAction();
-        if (TelephonyManager.ACTION_PHONE_STATE_CHANGED.equals(action)) {
-            String state = intent.getStringExtra(TelephonyManager.EXTRA_STATE);
-            String phoneNumber = intent.getStringExtra(TelephonyManager.EXTRA_INCOMING_NUMBER);
-            
-            Log.d(TAG, "Phone state changed: " + state + ", number: " + phoneNumber);
-            
-            CallStateManager callStateManager = CallStateManager.getInstance();
+        String phoneNumber = intent.getStringExtra(TelephonyManager.EXTRA_INCOMING_NUMBER);
+        int subscriptionId = getSubscriptionId(intent);
+        
+        Log.d(TAG, "Phone state changed: " + state + ", number: " + phoneNumber + ", sub: " + subscriptionId);
+        
+        CallSessionTracker tracker = CallSessionTracker.getInstance(context);
+        
+        if (TelephonyManager.EXTRA_STATE_RINGING.equals(state)) {
+            // Incoming call, or a second call waiting behind an active one
+            tracker.onRinging(phoneNumber, subscriptionId, System.currentTimeMillis());
             
-            if (TelephonyManager.EXTRA_STATE_RINGING.equals(state)) {
-                // Incoming call
-                if (phoneNumber != null && !phoneNumber.isEmpty()) {
-                    callStateManager.onIncomingCall(phoneNumber);
-                    Log.d(TAG, "Incoming call from: " + phoneNumber);
-                }
+        } else if (TelephonyManager.EXTRA_STATE_IDLE.equals(state)) {
+            // Every call on this subscription ended
+            List<CallSessionTracker.MissedCall> missedCalls = tracker.onIdle(subscriptionId);
+            long detectedAt = SystemClock.elapsedRealtimeNanos();
+            for (int i = 0; i < missedCalls.size(); i++) {
+                CallSessionTracker.MissedCall missedCall = missedCalls.get(i);
+                Log.d(TAG, "Missed call detected from: " + missedCall.number);
                 
-            } else if (TelephonyManager.EXTRA_STATE_IDLE.equals(state)) {
-                // Call ended or no call
-                String missedNumber = callStateManager.onCallEnded();
-                if (missedNumber != null) {
-                    Log.d(TAG, "Missed call detected from: " + missedNumber);
-                    
-                    // Start the service to handle the missed call
-                    Intent serviceIntent = new Intent(context, MissedCallService.class);
-                    serviceIntent.setAction(MissedCallService.ACTION_MISSED_CALL);
-                    serviceIntent.putExtra(MissedCallService.EXTRA_PHONE_NUMBER, missedNumber);
-                    serviceIntent.putExtra(MissedCallService.EXTRA_CALL_TIME, System.currentTimeMillis());
-                    
-                    context.startForegroundService(serviceIntent);
-                }
+                // Start the service to handle the missed call
+                Intent serviceIntent = new Intent(context, MissedCallService.class);
+                serviceIntent.setAction(MissedCallService.ACTION_MISSED_CALL);
+                serviceIntent.putExtra(MissedCallService.EXTRA_PHONE_NUMBER, missedCall.number);
+                serviceIntent.putExtra(MissedCallService.EXTRA_CALL_TIME, missedCall.ringTime);
+                serviceIntent.putExtra(MissedCallService.EXTRA_DETECTED_AT, detectedAt);
                 
-            } else if (TelephonyManager.EXTRA_STATE_OFFHOOK.equals(state)) {
-                // Call answered
-                callStateManager.onCallAnswered();
-                Log.d(TAG, "Call answered");
+                context.startForegroundService(serviceIntent);
             }
+            
+        } else if (TelephonyManager.EXTRA_STATE_OFFHOOK.equals(state)) {
+            // Call answered, an outgoing call, or a waiting call stopped ringing
+            tracker.onOffhook(subscriptionId);
+        }
+    }
+
+    private static int getSubscriptionId(Intent intent) {
+        int subscriptionId = intent.getIntExtra(EXTRA_SUBSCRIPTION_INDEX, CallSessionTracker.UNKNOWN_SUBSCRIPTION);
+        if (subscriptionId == CallSessionTracker.UNKNOWN_SUBSCRIPTION) {
+            subscriptionId = intent.getIntExtra(EXTRA_SUBSCRIPTION_LEGACY, CallSessionTracker.UNKNOWN_SUBSCRIPTION);
         }
+        return subscriptionId;
     }
-}
\ No newline at end of file
+}
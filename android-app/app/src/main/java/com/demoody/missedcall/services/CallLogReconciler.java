@@ -0,0 +1,202 @@
+package com.demoody.missedcall.services;
+
+import android.content.ContentResolver;
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.database.ContentObserver;
+import android.database.Cursor;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.provider.CallLog;
+import android.util.Log;
+
+import com.demoody.missedcall.MissedCallApplication;
+import com.demoody.missedcall.db.MissedCallDao;
+import com.demoody.missedcall.utils.DetectionLatency;
+import com.demoody.missedcall.utils.PermissionUtils;
+import com.demoody.missedcall.utils.PhoneNumberNormalizer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Recovers missed calls that live detection never saw (process killed,
+ * broadcast delayed by Doze, number only on a later broadcast) from the
+ * system call log. Each pass reads only MISSED_TYPE rows above a persisted
+ * _ID high-water mark, so it is one range read on the call log's primary
+ * key. Calls already stored are skipped; the rest go through
+ * {@link MissedCallIntake} like any other detection.
+ *
+ * <p>While the service runs, a {@link ContentObserver} triggers a pass
+ * shortly after each call log change; {@code CallLogReconcileWorker}
+ * sweeps periodically for the times it does not.
+ */
+public final class CallLogReconciler {
+
+    private static final String TAG = "CallLogReconciler";
+
+    private static final String PREF_NAME = "call_log_state";
+    private static final String KEY_LAST_ID = "last_id";
+
+    // Upper bound per pass; anything beyond is picked up by the next one
+    static final int MAX_ROWS_PER_PASS = 200;
+
+    // Call log time and our ring time come from different clocks and events
+    private static final long MATCH_WINDOW_MS = TimeUnit.MINUTES.toMillis(2);
+
+    // Older calls are not worth an automatic reply any more
+    private static final long MAX_RECOVERY_AGE_MS = TimeUnit.HOURS.toMillis(24);
+
+    // Longer than the ingestion commit window, so a call live detection just
+    // queued is already stored when the pass checks for it
+    private static final long OBSERVER_DELAY_MS = 3000;
+
+    private static final String[] PROJECTION = {
+        CallLog.Calls._ID,
+        CallLog.Calls.NUMBER,
+        CallLog.Calls.DATE
+    };
+
+    private static final String SELECTION =
+        CallLog.Calls._ID + " > ? AND " + CallLog.Calls.TYPE + " = " + CallLog.Calls.MISSED_TYPE;
+
+    private final MissedCallApplication app;
+    private final SharedPreferences state;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Runnable scheduledPass;
+    private final ContentObserver observer;
+    private boolean observing;
+
+    public CallLogReconciler(MissedCallApplication app) {
+        this.app = app;
+        this.state = app.getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE);
+        this.scheduledPass = () -> app.getExecutors().diskIO().execute(this::reconcile);
+        this.observer = new ContentObserver(handler) {
+            @Override
+            public void onChange(boolean selfChange) {
+                schedulePass();
+            }
+        };
+    }
+
+    /**
+     * Starts watching the call log and runs a pass for anything missed while
+     * the process was down. Call on the main thread.
+     */
+    public void startObserving() {
+        if (observing) {
+            return;
+        }
+        try {
+            app.getContentResolver().registerContentObserver(CallLog.Calls.CONTENT_URI, true, observer);
+            observing = true;
+        } catch (SecurityException e) {
+            Log.w(TAG, "Cannot observe the call log", e);
+        }
+        schedulePass();
+    }
+
+    public void stopObserving() {
+        if (observing) {
+            app.getContentResolver().unregisterContentObserver(observer);
+            observing = false;
+        }
+        handler.removeCallbacks(scheduledPass);
+    }
+
+    private void schedulePass() {
+        // One pass per burst of changes
+        handler.removeCallbacks(scheduledPass);
+        handler.postDelayed(scheduledPass, OBSERVER_DELAY_MS);
+    }
+
+    /**
+     * Runs one pass. Blocking; call on a background thread. Passes are
+     * serialized, so the observer and the periodic sweep can both call it.
+     *
+     * @return the number of calls handed to the intake
+     */
+    public synchronized int reconcile() {
+        if (!PermissionUtils.hasRequiredPermissions(app)) {
+            return 0;
+        }
+
+        ContentResolver resolver = app.getContentResolver();
+        long lastId = state.getLong(KEY_LAST_ID, -1);
+
+        if (lastId < 0) {
+            // First run: start from the newest entry instead of replying to the whole history
+            try {
+                lastId = readNewestId(resolver);
+            } catch (SecurityException e) {
+                Log.w(TAG, "Call log not readable", e);
+                return 0;
+            }
+            state.edit().putLong(KEY_LAST_ID, lastId).apply();
+            Log.d(TAG, "Call log high-water mark initialized at " + lastId);
+            return 0;
+        }
+
+        MissedCallDao missedCallDao = app.getDatabase().missedCallDao();
+        MissedCallIntake intake = app.getMissedCallIntake();
+        PhoneNumberNormalizer normalizer = app.getPhoneNumberNormalizer();
+        long oldest = System.currentTimeMillis() - MAX_RECOVERY_AGE_MS;
+        long highWaterMark = lastId;
+        int recovered = 0;
+
+        try (Cursor cursor = queryMissedAfter(resolver, lastId)) {
+            if (cursor == null) {
+                return 0;
+            }
+
+            while (cursor.moveToNext()) {
+                highWaterMark = cursor.getLong(0);
+                String number = cursor.getString(1);
+                long callTime = cursor.getLong(2);
+
+                if (number == null || number.isEmpty() || callTime < oldest) {
+                    continue;
+                }
+
+                long phoneKey = PhoneNumberNormalizer.keyOf(normalizer.normalize(number));
+                if (missedCallDao.countCallsBetween(phoneKey,
+                        callTime - MATCH_WINDOW_MS, callTime + MATCH_WINDOW_MS) > 0) {
+                    continue;
+                }
+
+                Log.d(TAG, "Recovered missed call from call log: " + number);
+                intake.submit(number, callTime, 0, DetectionLatency.SOURCE_CALL_LOG);
+                recovered++;
+            }
+        } catch (SecurityException e) {
+            // Keep whatever was read before the permission went away
+            Log.w(TAG, "Call log not readable", e);
+        }
+
+        if (highWaterMark != lastId) {
+            state.edit().putLong(KEY_LAST_ID, highWaterMark).apply();
+        }
+        return recovered;
+    }
+
+    private static Cursor queryMissedAfter(ContentResolver resolver, long lastId) {
+        return resolver.query(limited(MAX_ROWS_PER_PASS), PROJECTION, SELECTION,
+            new String[] { String.valueOf(lastId) }, CallLog.Calls._ID + " ASC");
+    }
+
+    private static long readNewestId(ContentResolver resolver) {
+        try (Cursor cursor = resolver.query(limited(1), new String[] { CallLog.Calls._ID },
+                null, null, CallLog.Calls._ID + " DESC")) {
+            if (cursor != null && cursor.moveToFirst()) {
+                return cursor.getLong(0);
+            }
+        }
+        return 0;
+    }
+
+    private static Uri limited(int limit) {
+        return CallLog.Calls.CONTENT_URI.buildUpon()
+            .appendQueryParameter(CallLog.Calls.LIMIT_PARAM_KEY, String.valueOf(limit))
+            .build();
+    }
+}
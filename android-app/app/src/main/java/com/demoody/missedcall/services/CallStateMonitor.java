@@ -0,0 +1,203 @@
+package com.demoody.missedcall.services;
+
+import android.annotation.SuppressLint;
+import android.content.Context;
+import android.os.Build;
+import android.os.SystemClock;
+import android.telephony.PhoneStateListener;
+import android.telephony.SubscriptionInfo;
+import android.telephony.SubscriptionManager;
+import android.telephony.TelephonyCallback;
+import android.telephony.TelephonyManager;
+import android.util.Log;
+
+import androidx.annotation.RequiresApi;
+import androidx.core.content.ContextCompat;
+
+import com.demoody.missedcall.utils.CallSessionTracker;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Listens for call state changes inside the running service, one listener
+ * per active subscription, so a missed call is handled without waiting for
+ * the PHONE_STATE broadcast and a service start. Sessions go through the
+ * same {@link CallSessionTracker} as {@code CallReceiver}; whichever sees
+ * IDLE first reports the call and the other finds nothing left.
+ *
+ * <p>{@link TelephonyCallback} (Android 12+) does not carry the number, so
+ * there the receiver keeps handling every broadcast and this monitor only
+ * adds an early IDLE. The broadcasts can arrive after the callback, so a
+ * RINGING recorded after that IDLE is still closed by the receiver's own
+ * IDLE, and an early OFFHOOK cannot race ahead of the session it answers.
+ */
+final class CallStateMonitor {
+
+    private static final String TAG = "CallStateMonitor";
+
+    interface Listener {
+        /** Called on the main thread for each missed call. */
+        void onMissedCall(CallSessionTracker.MissedCall missedCall, long detectedAtNanos);
+    }
+
+    private final Context context;
+    private final CallSessionTracker tracker;
+    private final Listener listener;
+
+    // TelephonyManager and its registered callback or listener, pairwise
+    private final List<TelephonyManager> managers = new ArrayList<>();
+    private final List<Object> registrations = new ArrayList<>();
+
+    CallStateMonitor(Context context, CallSessionTracker tracker, Listener listener) {
+        this.context = context.getApplicationContext();
+        this.tracker = tracker;
+        this.listener = listener;
+    }
+
+    boolean isRunning() {
+        return !registrations.isEmpty();
+    }
+
+    /**
+     * True if the listeners see the incoming number, so every transition is
+     * handled here and the receiver has nothing to add.
+     */
+    static boolean reportsNumbers() {
+        return Build.VERSION.SDK_INT < Build.VERSION_CODES.S;
+    }
+
+    /**
+     * Registers the listeners. Call on the main thread with READ_PHONE_STATE
+     * granted; returns false if nothing could be registered, leaving
+     * detection to the receiver.
+     */
+    @SuppressLint("MissingPermission")
+    boolean start() {
+        if (isRunning()) {
+            return true;
+        }
+
+        TelephonyManager telephonyManager = (TelephonyManager) context.getSystemService(Context.TELEPHONY_SERVICE);
+        if (telephonyManager == null) {
+            return false;
+        }
+
+        try {
+            List<SubscriptionInfo> subscriptions = null;
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
+                SubscriptionManager subscriptionManager = context.getSystemService(SubscriptionManager.class);
+                if (subscriptionManager != null) {
+                    subscriptions = subscriptionManager.getActiveSubscriptionInfoList();
+                }
+                if (subscriptions != null) {
+                    for (SubscriptionInfo subscription : subscriptions) {
+                        int subscriptionId = subscription.getSubscriptionId();
+                        register(telephonyManager.createForSubscriptionId(subscriptionId), subscriptionId);
+                    }
+                }
+            }
+
+            if (registrations.isEmpty()) {
+                register(telephonyManager, CallSessionTracker.UNKNOWN_SUBSCRIPTION);
+            }
+        } catch (SecurityException e) {
+            Log.w(TAG, "Cannot listen for call state in process", e);
+            stop();
+            return false;
+        }
+
+        Log.d(TAG, "Listening for call state on " + registrations.size() + " subscription(s)");
+        return true;
+    }
+
+    void stop() {
+        for (int i = 0; i < registrations.size(); i++) {
+            TelephonyManager manager = managers.get(i);
+            Object registration = registrations.get(i);
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S) {
+                manager.unregisterTelephonyCallback((TelephonyCallback) registration);
+            } else {
+                manager.listen((PhoneStateListener) registration, PhoneStateListener.LISTEN_NONE);
+            }
+        }
+        managers.clear();
+        registrations.clear();
+    }
+
+    @SuppressLint("MissingPermission")
+    private void register(TelephonyManager manager, int subscriptionId) {
+        Object registration;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S) {
+            CallStateCallback callback = new CallStateCallback(subscriptionId);
+            manager.registerTelephonyCallback(ContextCompat.getMainExecutor(context), callback);
+            registration = callback;
+        } else {
+            LegacyCallStateListener phoneStateListener = new LegacyCallStateListener(subscriptionId);
+            manager.listen(phoneStateListener, PhoneStateListener.LISTEN_CALL_STATE);
+            registration = phoneStateListener;
+        }
+        managers.add(manager);
+        registrations.add(registration);
+    }
+
+    private void onCallStateChanged(int state, String phoneNumber, int subscriptionId) {
+        switch (state) {
+            case TelephonyManager.CALL_STATE_RINGING:
+                tracker.onRinging(phoneNumber, subscriptionId, System.currentTimeMillis());
+                break;
+
+            case TelephonyManager.CALL_STATE_OFFHOOK:
+                // Without the number the session may not exist yet; the receiver's OFFHOOK follows it
+                if (reportsNumbers()) {
+                    tracker.onOffhook(subscriptionId);
+                }
+                break;
+
+            case TelephonyManager.CALL_STATE_IDLE:
+                List<CallSessionTracker.MissedCall> missedCalls = tracker.onIdle(subscriptionId);
+                if (missedCalls.isEmpty()) {
+                    break;
+                }
+                long detectedAt = SystemClock.elapsedRealtimeNanos();
+                for (int i = 0; i < missedCalls.size(); i++) {
+                    listener.onMissedCall(missedCalls.get(i), detectedAt);
+                }
+                break;
+
+            default:
+                break;
+        }
+    }
+
+    @RequiresApi(Build.VERSION_CODES.S)
+    private final class CallStateCallback extends TelephonyCallback
+            implements TelephonyCallback.CallStateListener {
+
+        private final int subscriptionId;
+
+        CallStateCallback(int subscriptionId) {
+            this.subscriptionId = subscriptionId;
+        }
+
+        @Override
+        public void onCallStateChanged(int state) {
+            CallStateMonitor.this.onCallStateChanged(state, null, subscriptionId);
+        }
+    }
+
+    @SuppressWarnings("deprecation")
+    private final class LegacyCallStateListener extends PhoneStateListener {
+
+        private final int subscriptionId;
+
+        LegacyCallStateListener(int subscriptionId) {
+            this.subscriptionId = subscriptionId;
+        }
+
+        @Override
+        public void onCallStateChanged(int state, String phoneNumber) {
+            CallStateMonitor.this.onCallStateChanged(state, phoneNumber, subscriptionId);
+        }
+    }
+}
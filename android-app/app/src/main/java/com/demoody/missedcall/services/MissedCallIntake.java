@@ -0,0 +1,113 @@
+package com.demoody.missedcall.services;
+
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.demoody.missedcall.MissedCallApplication;
+import com.demoody.missedcall.db.MissedCallDao;
+import com.demoody.missedcall.db.MissedCallEntity;
+import com.demoody.missedcall.utils.PhoneNumberNormalizer;
+import com.demoody.missedcall.utils.Settings;
+import com.demoody.missedcall.utils.SettingsRepository;
+
+/**
+ * The single path from a detected missed call to a queued row: settings
+ * check, normalization, opt-out list, cooldown, then group commit. Live
+ * detection and call log reconciliation both submit here, so they are
+ * filtered and deduplicated the same way.
+ */
+public final class MissedCallIntake {
+
+    private static final String TAG = "MissedCallIntake";
+
+    private final MissedCallApplication app;
+    private final SettingsRepository settingsRepository;
+
+    public MissedCallIntake(MissedCallApplication app) {
+        this.app = app;
+        this.settingsRepository = SettingsRepository.getInstance(app);
+    }
+
+    /**
+     * @param detectedAt {@link SystemClock#elapsedRealtimeNanos()} when the
+     *                   call was detected, or 0 if not measured
+     * @param source     a {@code DetectionLatency} source
+     */
+    public void submit(String phoneNumber, long callTime, long detectedAt, int source) {
+        if (phoneNumber == null || phoneNumber.isEmpty()) {
+            Log.w(TAG, "Invalid phone number for missed call");
+            return;
+        }
+        
+        Log.d(TAG, "Handling missed call from: " + phoneNumber);
+        
+        // One snapshot for the whole call, so every decision sees the same settings
+        Settings settings = settingsRepository.get();
+        
+        // Check if auto-responder is enabled
+        if (!settings.autoResponderEnabled) {
+            Log.d(TAG, "Auto-responder disabled, skipping missed call");
+            return;
+        }
+        
+        String normalizedNumber = app.getPhoneNumberNormalizer().normalize(phoneNumber);
+        long phoneKey = PhoneNumberNormalizer.keyOf(normalizedNumber);
+        
+        // Opted-out callers are dropped before anything is stored or scheduled
+        if (app.getBlocklist().contains(phoneKey)) {
+            Log.d(TAG, "Caller is blocked, skipping missed call");
+            return;
+        }
+        
+        // Repeat callers inside the cooldown window are dropped before any I/O
+        long cooldownMillis = settings.cooldownMillis;
+        if (cooldownMillis > 0) {
+            if (!app.getCooldownCache().tryAcquire(phoneKey, callTime, cooldownMillis)) {
+                Log.d(TAG, "Caller in cooldown, skipping missed call");
+                return;
+            }
+            
+            if (!app.getCooldownCache().isWarm()) {
+                // Cache is still loading; confirm against stored calls first
+                app.getExecutors().diskIO().execute(() -> {
+                    MissedCallDao missedCallDao = app.getDatabase().missedCallDao();
+                    if (missedCallDao.findRecentByPhone(phoneKey, callTime - cooldownMillis) != null) {
+                        Log.d(TAG, "Caller in cooldown, skipping missed call");
+                        return;
+                    }
+                    enqueue(settings, normalizedNumber, callTime, detectedAt, source);
+                });
+                return;
+            }
+        }
+        
+        enqueue(settings, normalizedNumber, callTime, detectedAt, source);
+    }
+    
+    private void enqueue(Settings settings, String phoneNumber, long callTime, long detectedAt, int source) {
+        // Create missed call entity, stamped with the settings it was scheduled under
+        long scheduledTime = callTime + settings.delayMillis;
+        MissedCallEntity missedCall = new MissedCallEntity(phoneNumber, callTime, scheduledTime, settings.messageTemplate);
+        missedCall.settingsVersion = settings.version;
+        
+        // Queue for the next group commit; the dispatch chain is re-armed once per commit
+        app.getIngestionQueue().enqueue(missedCall, (call, id) -> {
+            if (id > 0) {
+                if (detectedAt > 0) {
+                    long latencyNanos = SystemClock.elapsedRealtimeNanos() - detectedAt;
+                    app.getDetectionLatency().record(source, latencyNanos);
+                    Log.d(TAG, "Missed call saved with ID: " + id + " in "
+                        + latencyNanos / 1_000_000 + "ms from detection");
+                } else {
+                    Log.d(TAG, "Missed call saved with ID: " + id);
+                }
+            } else if (id == 0) {
+                Log.w(TAG, "Duplicate missed call, not scheduling message");
+            } else {
+                // Not stored; let the caller's next call through
+                app.getCooldownCache().release(call.phoneKey, call.callTime);
+                Log.e(TAG, "Failed to save missed call");
+            }
+        });
+    }
+}
@@ -8,18 +8,20 @@ import android.os.IBinder;
 import android.util.Log;
 
 import androidx.core.app.NotificationCompat;
-import androidx.work.Data;
-import androidx.work.OneTimeWorkRequest;
-import androidx.work.WorkManager;
 
 import com.demoody.missedcall.MainActivity;
 import com.demoody.missedcall.MissedCallApplication;
 import com.demoody.missedcall.R;
-import com.demoody.missedcall.db.MissedCallEntity;
-import com.demoody.missedcall.utils.PreferenceManager;
-import com.demoody.missedcall.workers.MessageSchedulerWorker;
-
-import java.util.concurrent.TimeUnit;
+import com.demoody.missedcall.utils.AppExecutors;
+import com.demoody.missedcall.utils.CallSessionTracker;
+import com.demoody.missedcall.utils.DetectionLatency;
+import com.demoody.missedcall.utils.PermissionUtils;
+import com.demoody.missedcall.utils.SettingsRepository;
+import com.demoody.missedcall.workers.BlocklistSyncWorker;
+import com.demoody.missedcall.workers.CallLogReconcileWorker;
+import com.demoody.missedcall.workers.DispatchScheduler;
+import com.demoody.missedcall.workers.LogSyncWorker;
+import com.demoody.missedcall.workers.RetentionWorker;
 
 public class MissedCallService extends Service {
     
@@ -32,13 +34,22 @@ public class MissedCallService extends Service {
     
     public static final String EXTRA_PHONE_NUMBER = "phone_number";
     public static final String EXTRA_CALL_TIME = "call_time";
+    // SystemClock.elapsedRealtimeNanos() when the receiver detected the call
+    public static final String EXTRA_DETECTED_AT = "detected_at";
+    
+    // Set while the running service sees every call state change with its number
+    private static volatile boolean detectingInProcess;
     
-    private PreferenceManager preferenceManager;
+    private SettingsRepository settingsRepository;
+    private CallStateMonitor callStateMonitor;
     
     @Override
     public void onCreate() {
         super.onCreate();
-        preferenceManager = new PreferenceManager(this);
+        settingsRepository = SettingsRepository.getInstance(this);
+        callStateMonitor = new CallStateMonitor(this, CallSessionTracker.getInstance(this),
+            (missedCall, detectedAt) -> ((MissedCallApplication) getApplication()).getMissedCallIntake()
+                .submit(missedCall.number, missedCall.ringTime, detectedAt, DetectionLatency.SOURCE_IN_PROCESS));
         Log.d(TAG, "Service created");
     }
     
@@ -70,81 +81,63 @@ public class MissedCallService extends Service {
     }
     
     private void startMonitoring() {
-        if (!preferenceManager.isAutoResponderEnabled()) {
+        if (!settingsRepository.get().autoResponderEnabled) {
             Log.d(TAG, "Auto-responder is disabled, stopping service");
             stopSelf();
             return;
         }
         
+        ((MissedCallApplication) getApplication()).createNotificationChannel();
         startForeground(NOTIFICATION_ID, createNotification());
+        DispatchScheduler.ensurePeriodicSweep(this);
+        RetentionWorker.schedule(this);
+        BlocklistSyncWorker.schedule(this);
+        LogSyncWorker.schedule(this);
+        CallLogReconcileWorker.schedule(this);
+        startInProcessDetection();
         Log.d(TAG, "Started foreground monitoring");
     }
     
+    private void startInProcessDetection() {
+        if (!PermissionUtils.hasRequiredPermissions(this)) {
+            Log.w(TAG, "Missing required permissions, leaving detection to CallReceiver");
+            return;
+        }
+        detectingInProcess = callStateMonitor.start() && CallStateMonitor.reportsNumbers();
+        ((MissedCallApplication) getApplication()).getCallLogReconciler().startObserving();
+    }
+    
+    private void stopInProcessDetection() {
+        detectingInProcess = false;
+        callStateMonitor.stop();
+        ((MissedCallApplication) getApplication()).getCallLogReconciler().stopObserving();
+    }
+    
+    /**
+     * True while the service handles every transition itself, so
+     * {@code CallReceiver} has nothing to add. Always false on Android 12+,
+     * where the in-process callback has no number and the receiver still
+     * drives the sessions.
+     */
+    public static boolean isDetectingInProcess() {
+        return detectingInProcess;
+    }
+    
     private void stopMonitoring() {
         Log.d(TAG, "Stopping monitoring");
+        stopInProcessDetection();
         stopForeground(true);
         stopSelf();
     }
     
     private void handleMissedCall(Intent intent) {
-        String phoneNumber = intent.getStringExtra(EXTRA_PHONE_NUMBER);
-        long callTime = intent.getLongExtra(EXTRA_CALL_TIME, System.currentTimeMillis());
-        
-        if (phoneNumber == null || phoneNumber.isEmpty()) {
-            Log.w(TAG, "Invalid phone number for missed call");
-            return;
-        }
-        
-        Log.d(TAG, "Handling missed call from: " + phoneNumber);
-        
-        // Check if auto-responder is enabled
-        if (!preferenceManager.isAutoResponderEnabled()) {
-            Log.d(TAG, "Auto-responder disabled, skipping missed call");
-            return;
-        }
-        
-        // Get message template and delay
-        String messageTemplate = preferenceManager.getMessageTemplate();
-        int delayMinutes = preferenceManager.getDelayMinutes();
-        
-        // Create missed call entity
-        long scheduledTime = callTime + (delayMinutes * 60 * 1000L);
-        MissedCallEntity missedCall = new MissedCallEntity(phoneNumber, callTime, scheduledTime, messageTemplate);
-        
-        // Save to local database
-        new Thread(() -> {
-            try {
-                MissedCallApplication app = (MissedCallApplication) getApplication();
-                long id = app.getDatabase().missedCallDao().insert(missedCall);
-                
-                if (id > 0) {
-                    Log.d(TAG, "Missed call saved with ID: " + id);
-                    scheduleMessage(phoneNumber, callTime, messageTemplate, delayMinutes);
-                } else {
-                    Log.w(TAG, "Duplicate missed call, not scheduling message");
-                }
-            } catch (Exception e) {
-                Log.e(TAG, "Error saving missed call", e);
-            }
-        }).start();
-    }
-    
-    private void scheduleMessage(String phoneNumber, long callTime, String messageText, int delayMinutes) {
-        Data inputData = new Data.Builder()
-            .putString(MessageSchedulerWorker.KEY_PHONE_NUMBER, phoneNumber)
-            .putLong(MessageSchedulerWorker.KEY_CALL_TIME, callTime)
-            .putString(MessageSchedulerWorker.KEY_MESSAGE_TEXT, messageText)
-            .build();
-        
-        OneTimeWorkRequest workRequest = new OneTimeWorkRequest.Builder(MessageSchedulerWorker.class)
-            .setInputData(inputData)
-            .setInitialDelay(delayMinutes, TimeUnit.MINUTES)
-            .addTag("missed_call_" + phoneNumber + "_" + callTime)
-            .build();
-        
-        WorkManager.getInstance(this).enqueue(workRequest);
-        
-        Log.d(TAG, "Scheduled message for " + phoneNumber + " in " + delayMinutes + " minutes");
+        MissedCallApplication app = (MissedCallApplication) getApplication();
+        app.getMissedCallIntake().submit(
+            intent.getStringExtra(EXTRA_PHONE_NUMBER),
+            intent.getLongExtra(EXTRA_CALL_TIME, System.currentTimeMillis()),
+            intent.getLongExtra(EXTRA_DETECTED_AT, 0),
+            DetectionLatency.SOURCE_RECEIVER
+        );
     }
     
     private Notification createNotification() {
@@ -172,7 +165,11 @@ public class MissedCallService extends Service {
     
     @Override
     public void onDestroy() {
+        stopInProcessDetection();
         super.onDestroy();
-        Log.d(TAG, "Service destroyed");
+        MissedCallApplication app = (MissedCallApplication) getApplication();
+        AppExecutors executors = app.getExecutors();
+        Log.d(TAG, "Service destroyed. " + executors.diskIO().describeMetrics()
+            + ", " + app.getDetectionLatency().describe());
     }
 }
\ No newline at end of file
@@ -0,0 +1,45 @@
+package com.demoody.missedcall.startup;
+
+import android.content.Context;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.startup.Initializer;
+
+import com.demoody.missedcall.MissedCallApplication;
+import com.demoody.missedcall.db.AppDatabase;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Future;
+
+/**
+ * Builds and opens Room, then loads the cooldown cache and opt-out list, all
+ * on the disk I/O pool as soon as the process starts, so the first missed
+ * call's insert does not pay for opening the database. Nothing runs on the
+ * main thread beyond queuing the task.
+ */
+public class DatabaseInitializer implements Initializer<Future<AppDatabase>> {
+
+    private static final String TAG = "DatabaseInitializer";
+
+    @NonNull
+    @Override
+    public Future<AppDatabase> create(@NonNull Context context) {
+        MissedCallApplication app = (MissedCallApplication) context.getApplicationContext();
+
+        return app.getExecutors().diskIO().submit(() -> {
+            long start = SystemClock.elapsedRealtime();
+            app.warmUpStorage();
+            Log.d(TAG, "Storage warmed up in " + (SystemClock.elapsedRealtime() - start) + "ms");
+            return app.getDatabase();
+        });
+    }
+
+    @NonNull
+    @Override
+    public List<Class<? extends Initializer<?>>> dependencies() {
+        return Collections.singletonList(ExecutorsInitializer.class);
+    }
+}
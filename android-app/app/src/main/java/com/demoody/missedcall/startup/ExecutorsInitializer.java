@@ -0,0 +1,31 @@
+package com.demoody.missedcall.startup;
+
+import android.content.Context;
+
+import androidx.annotation.NonNull;
+import androidx.startup.Initializer;
+
+import com.demoody.missedcall.MissedCallApplication;
+import com.demoody.missedcall.utils.AppExecutors;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Creates the shared thread pools. Threads start with the first task, so
+ * this costs nothing on the main thread.
+ */
+public class ExecutorsInitializer implements Initializer<AppExecutors> {
+
+    @NonNull
+    @Override
+    public AppExecutors create(@NonNull Context context) {
+        return ((MissedCallApplication) context.getApplicationContext()).getExecutors();
+    }
+
+    @NonNull
+    @Override
+    public List<Class<? extends Initializer<?>>> dependencies() {
+        return Collections.emptyList();
+    }
+}
@@ -0,0 +1,40 @@
+package com.demoody.missedcall.startup;
+
+import android.content.Context;
+
+import androidx.annotation.NonNull;
+import androidx.startup.Initializer;
+
+import com.demoody.missedcall.MissedCallApplication;
+import com.demoody.missedcall.network.NetworkMonitor;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Future;
+
+/**
+ * Starts the network monitor, whose restore listener writes to the
+ * database, and warms the HTTP client. Both run on the network pool: the
+ * monitor reads the settings and registers its callback there, not on the
+ * main thread.
+ */
+public class NetworkInitializer implements Initializer<Future<NetworkMonitor>> {
+
+    @NonNull
+    @Override
+    public Future<NetworkMonitor> create(@NonNull Context context) {
+        MissedCallApplication app = (MissedCallApplication) context.getApplicationContext();
+
+        return app.getExecutors().networkIO().submit(() -> {
+            NetworkMonitor monitor = app.getNetworkMonitor();
+            app.warmUpApiClient();
+            return monitor;
+        });
+    }
+
+    @NonNull
+    @Override
+    public List<Class<? extends Initializer<?>>> dependencies() {
+        return Arrays.asList(ExecutorsInitializer.class, DatabaseInitializer.class);
+    }
+}
@@ -0,0 +1,241 @@
+package com.demoody.missedcall.utils;
+
+import android.os.Process;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Process-wide bounded thread pools for database and network work, owned by
+ * {@link com.demoody.missedcall.MissedCallApplication}.
+ *
+ * The app's own disk pool has a bounded queue; when it is full the
+ * submitting thread runs the task itself, which slows producers down
+ * instead of growing memory. Room and WorkManager submit from threads that
+ * must not block (the main thread, WorkManager's scheduler), so their pools
+ * queue without limit and only log when the queue passes its expected depth.
+ */
+public class AppExecutors {
+
+    private static final String TAG = "AppExecutors";
+
+    private static final int DISK_IO_THREADS = 2;
+    private static final int DISK_IO_QUEUE_CAPACITY = 256;
+    private static final int NETWORK_IO_QUEUE_CAPACITY = 64;
+
+    private static final int DATABASE_QUEUE_CAPACITY = 128;
+
+    private final BoundedExecutor diskIO;
+    private final BoundedExecutor networkIO;
+    private final BoundedExecutor databaseQuery;
+    private final BoundedExecutor databaseTransaction;
+
+    /**
+     * @param databaseQueryThreads Room read pool size, from the device's storage profile
+     */
+    public AppExecutors(int databaseQueryThreads) {
+        int networkThreads = Math.max(2, Math.min(Runtime.getRuntime().availableProcessors(), 4));
+
+        diskIO = new BoundedExecutor("disk-io", DISK_IO_THREADS, DISK_IO_QUEUE_CAPACITY, true);
+        networkIO = new BoundedExecutor("network-io", networkThreads, NETWORK_IO_QUEUE_CAPACITY, false);
+        databaseQuery = new BoundedExecutor("db-query", databaseQueryThreads, DATABASE_QUEUE_CAPACITY, false);
+        // SQLite allows a single writer, so more transaction threads only add contention
+        databaseTransaction = new BoundedExecutor("db-transaction", 1, DATABASE_QUEUE_CAPACITY, false);
+    }
+
+    public BoundedExecutor diskIO() {
+        return diskIO;
+    }
+
+    public BoundedExecutor networkIO() {
+        return networkIO;
+    }
+
+    public BoundedExecutor databaseQuery() {
+        return databaseQuery;
+    }
+
+    public BoundedExecutor databaseTransaction() {
+        return databaseTransaction;
+    }
+
+    /**
+     * Stops accepting work and waits for queued tasks to finish.
+     */
+    public void shutdown(long timeout, TimeUnit unit) {
+        BoundedExecutor[] pools = {diskIO, networkIO, databaseQuery, databaseTransaction};
+        for (BoundedExecutor pool : pools) {
+            pool.shutdown();
+        }
+
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        for (BoundedExecutor pool : pools) {
+            try {
+                if (!pool.awaitTermination(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                    Log.w(TAG, pool.name + " did not drain in time, " + pool.getQueue().size() + " tasks dropped");
+                    pool.shutdownNow();
+                }
+            } catch (InterruptedException e) {
+                pool.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+            Log.d(TAG, "Shut down " + pool.describeMetrics());
+        }
+    }
+
+    /**
+     * Fixed-size pool that records queue depth and per-task latency. With
+     * caller-runs the queue is bounded and a full queue runs the task on the
+     * submitting thread; otherwise the queue is unbounded and the capacity
+     * is only the depth past which a warning is logged.
+     */
+    public static class BoundedExecutor extends ThreadPoolExecutor {
+
+        private final String name;
+        private final int queueCapacity;
+
+        private final AtomicInteger maxQueueDepth = new AtomicInteger();
+        private final AtomicLong completedTasks = new AtomicLong();
+        private final AtomicLong callerRunTasks = new AtomicLong();
+        private final AtomicLong totalWaitNanos = new AtomicLong();
+        private final AtomicLong totalRunNanos = new AtomicLong();
+        private final AtomicLong maxLatencyNanos = new AtomicLong();
+
+        BoundedExecutor(String name, int threads, int queueCapacity, boolean callerRuns) {
+            super(threads, threads, 30, TimeUnit.SECONDS,
+                callerRuns ? new ArrayBlockingQueue<>(queueCapacity) : new LinkedBlockingQueue<>(),
+                new NamedThreadFactory(name));
+            this.name = name;
+            this.queueCapacity = queueCapacity;
+            allowCoreThreadTimeOut(true);
+            setRejectedExecutionHandler((task, executor) -> {
+                if (executor.isShutdown()) {
+                    Log.w(TAG, name + " is shut down, dropping task");
+                    return;
+                }
+                // Only reachable with caller-runs, as an unbounded queue never fills.
+                // Backpressure: run on the submitting thread
+                callerRunTasks.incrementAndGet();
+                task.run();
+            });
+        }
+
+        @Override
+        public void execute(@NonNull Runnable command) {
+            super.execute(new TimedTask(command, System.nanoTime()));
+
+            int depth = getQueue().size();
+            int max;
+            while (depth > (max = maxQueueDepth.get())) {
+                if (maxQueueDepth.compareAndSet(max, depth)) {
+                    if (max < queueCapacity && depth >= queueCapacity) {
+                        Log.w(TAG, name + " queue passed " + queueCapacity + " tasks");
+                    }
+                    break;
+                }
+            }
+        }
+
+        public int getQueueDepth() {
+            return getQueue().size();
+        }
+
+        public int getMaxQueueDepth() {
+            return maxQueueDepth.get();
+        }
+
+        public long getCompletedTasks() {
+            return completedTasks.get();
+        }
+
+        public long getCallerRunTasks() {
+            return callerRunTasks.get();
+        }
+
+        public long getAverageWaitMillis() {
+            long completed = completedTasks.get();
+            return completed == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(totalWaitNanos.get() / completed);
+        }
+
+        public long getAverageRunMillis() {
+            long completed = completedTasks.get();
+            return completed == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(totalRunNanos.get() / completed);
+        }
+
+        public long getMaxLatencyMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(maxLatencyNanos.get());
+        }
+
+        public String describeMetrics() {
+            return name + ": queue=" + getQueueDepth() + " (max " + getMaxQueueDepth() + ")"
+                + ", completed=" + getCompletedTasks()
+                + ", callerRuns=" + getCallerRunTasks()
+                + ", avgWait=" + getAverageWaitMillis() + "ms"
+                + ", avgRun=" + getAverageRunMillis() + "ms"
+                + ", maxLatency=" + getMaxLatencyMillis() + "ms";
+        }
+
+        private void record(long waitNanos, long runNanos) {
+            completedTasks.incrementAndGet();
+            totalWaitNanos.addAndGet(waitNanos);
+            totalRunNanos.addAndGet(runNanos);
+
+            long latency = waitNanos + runNanos;
+            long max;
+            while (latency > (max = maxLatencyNanos.get())) {
+                if (maxLatencyNanos.compareAndSet(max, latency)) {
+                    break;
+                }
+            }
+        }
+
+        private final class TimedTask implements Runnable {
+
+            private final Runnable delegate;
+            private final long enqueuedAt;
+
+            TimedTask(Runnable delegate, long enqueuedAt) {
+                this.delegate = delegate;
+                this.enqueuedAt = enqueuedAt;
+            }
+
+            @Override
+            public void run() {
+                long startedAt = System.nanoTime();
+                try {
+                    delegate.run();
+                } finally {
+                    record(startedAt - enqueuedAt, System.nanoTime() - startedAt);
+                }
+            }
+        }
+    }
+
+    private static class NamedThreadFactory implements ThreadFactory {
+
+        private final String prefix;
+        private final AtomicInteger count = new AtomicInteger(1);
+
+        NamedThreadFactory(String prefix) {
+            this.prefix = prefix;
+        }
+
+        @Override
+        public Thread newThread(@NonNull Runnable runnable) {
+            Thread thread = new Thread(() -> {
+                Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                runnable.run();
+            }, prefix + "-" + count.getAndIncrement());
+            thread.setDaemon(false);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.demoody.missedcall.utils;
+
+import com.demoody.missedcall.db.BlockedNumberDao;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory set of blocked phone keys, so blocked callers are dropped with
+ * one hash lookup before anything is stored or scheduled. Loaded once from
+ * the blocked_numbers table, then updated with each synced delta.
+ */
+public class Blocklist {
+
+    private final Set<Long> phoneKeys = Collections.newSetFromMap(new ConcurrentHashMap<>());
+    private volatile boolean loaded;
+
+    /**
+     * True if the number is known to be blocked. Before {@link #load} has
+     * run this is always false and the backend's check still applies.
+     */
+    public boolean contains(long phoneKey) {
+        return phoneKeys.contains(phoneKey);
+    }
+
+    /**
+     * Reads the stored list. Holding the lock while reading means a delta
+     * committed concurrently is applied after the load, never overwritten
+     * by it.
+     */
+    public synchronized void load(BlockedNumberDao dao) {
+        phoneKeys.addAll(dao.getAllKeys());
+        loaded = true;
+    }
+
+    /**
+     * Applies a delta that has already been committed to the database.
+     */
+    public synchronized void apply(Collection<Long> blockedKeys, Collection<Long> unblockedKeys) {
+        phoneKeys.addAll(blockedKeys);
+        phoneKeys.removeAll(unblockedKeys);
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    public int size() {
+        return phoneKeys.size();
+    }
+}
@@ -0,0 +1,199 @@
+package com.demoody.missedcall.utils;
+
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.GregorianCalendar;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Weekly opening hours precomputed into a minute-of-week bitmap, plus a
+ * table of minutes until the next open minute, so {@link #isOpen(long)} and
+ * {@link #nextOpen(long)} are a few array lookups. Holidays close whole
+ * local days. Immutable and safe to share between threads.
+ */
+public final class BusinessCalendar {
+
+    private static final int MINUTES_PER_DAY = 24 * 60;
+    private static final int MINUTES_PER_WEEK = 7 * MINUTES_PER_DAY;
+    private static final long MILLIS_PER_MINUTE = TimeUnit.MINUTES.toMillis(1);
+    private static final long MILLIS_PER_DAY = TimeUnit.DAYS.toMillis(1);
+
+    // 1970-01-01 was a Thursday (Calendar.THURSDAY == 5)
+    private static final int EPOCH_DAY_OF_WEEK_OFFSET = Calendar.THURSDAY - Calendar.SUNDAY;
+
+    // Upper bound on consecutive holidays nextOpen() will skip over
+    private static final int MAX_HOLIDAY_SKIPS = 366;
+
+    private final TimeZone timeZone;
+    private final long[] openBits;
+    private final short[] minutesToOpen;
+    private final Set<Long> holidayEpochDays;
+
+    private BusinessCalendar(TimeZone timeZone, long[] openBits, Set<Long> holidayEpochDays) {
+        this.timeZone = timeZone;
+        this.openBits = openBits;
+        this.holidayEpochDays = holidayEpochDays;
+        this.minutesToOpen = buildMinutesToOpen(openBits);
+    }
+
+    /**
+     * Opens the same hours on each day in {@code daysMask} (bit 0 = Sunday).
+     * An end hour at or before the start hour runs past midnight; equal
+     * hours mean open all day.
+     */
+    public static BusinessCalendar weekly(TimeZone timeZone, int daysMask, int startHour, int endHour,
+                                          Collection<String> holidays) {
+        Builder builder = new Builder().setTimeZone(timeZone);
+        for (int day = Calendar.SUNDAY; day <= Calendar.SATURDAY; day++) {
+            if ((daysMask & (1 << (day - Calendar.SUNDAY))) != 0) {
+                builder.addOpenHours(day, startHour * 60, endHour * 60);
+            }
+        }
+        if (holidays != null) {
+            for (String holiday : holidays) {
+                builder.addHoliday(holiday);
+            }
+        }
+        return builder.build();
+    }
+
+    public boolean isOpen(long timeMillis) {
+        long local = timeMillis + timeZone.getOffset(timeMillis);
+        long epochDay = Math.floorDiv(local, MILLIS_PER_DAY);
+        if (holidayEpochDays.contains(epochDay)) {
+            return false;
+        }
+        int minute = minuteOfWeek(epochDay, local);
+        return (openBits[minute >>> 6] & (1L << minute)) != 0;
+    }
+
+    /**
+     * Returns {@code timeMillis} if open, otherwise the start of the next
+     * open minute, or -1 if the calendar never opens.
+     */
+    public long nextOpen(long timeMillis) {
+        long time = timeMillis;
+
+        for (int skips = 0; skips <= MAX_HOLIDAY_SKIPS; skips++) {
+            long local = time + timeZone.getOffset(time);
+            long epochDay = Math.floorDiv(local, MILLIS_PER_DAY);
+
+            if (holidayEpochDays.contains(epochDay)) {
+                time = toUtc((epochDay + 1) * MILLIS_PER_DAY);
+                continue;
+            }
+
+            int minute = minuteOfWeek(epochDay, local);
+            if ((openBits[minute >>> 6] & (1L << minute)) != 0) {
+                return time;
+            }
+
+            int wait = minutesToOpen[minute];
+            if (wait < 0) {
+                return -1;
+            }
+
+            long openLocal = Math.floorDiv(local, MILLIS_PER_MINUTE) * MILLIS_PER_MINUTE + wait * MILLIS_PER_MINUTE;
+            time = toUtc(openLocal);
+
+            if (!holidayEpochDays.contains(Math.floorDiv(openLocal, MILLIS_PER_DAY))) {
+                return time;
+            }
+        }
+        return -1;
+    }
+
+    public TimeZone getTimeZone() {
+        return timeZone;
+    }
+
+    private static int minuteOfWeek(long epochDay, long local) {
+        int dayOfWeek = (int) Math.floorMod(epochDay + EPOCH_DAY_OF_WEEK_OFFSET, 7);
+        int minuteOfDay = (int) (Math.floorMod(local, MILLIS_PER_DAY) / MILLIS_PER_MINUTE);
+        return dayOfWeek * MINUTES_PER_DAY + minuteOfDay;
+    }
+
+    private long toUtc(long local) {
+        // Offset in effect at the target wall-clock time, so DST changes land correctly
+        return local - timeZone.getOffset(local - timeZone.getRawOffset());
+    }
+
+    private static short[] buildMinutesToOpen(long[] openBits) {
+        short[] table = new short[MINUTES_PER_WEEK];
+        int nextOpen = -1;
+
+        // Two backward passes so minutes late in the week see openings early in the next
+        for (int pass = 0; pass < 2; pass++) {
+            for (int minute = MINUTES_PER_WEEK - 1; minute >= 0; minute--) {
+                if ((openBits[minute >>> 6] & (1L << minute)) != 0) {
+                    nextOpen = minute + (pass == 0 ? MINUTES_PER_WEEK : 0);
+                }
+                if (pass == 1) {
+                    table[minute] = nextOpen < 0 ? -1 : (short) (nextOpen - minute);
+                }
+            }
+        }
+        return table;
+    }
+
+    public static class Builder {
+
+        private TimeZone timeZone = TimeZone.getDefault();
+        private final long[] openBits = new long[(MINUTES_PER_WEEK + 63) / 64];
+        private final Set<Long> holidayEpochDays = new HashSet<>();
+
+        public Builder setTimeZone(TimeZone timeZone) {
+            if (timeZone != null) {
+                this.timeZone = timeZone;
+            }
+            return this;
+        }
+
+        /**
+         * @param dayOfWeek   {@link Calendar#SUNDAY} to {@link Calendar#SATURDAY}
+         * @param startMinute minute of day the business opens
+         * @param endMinute   minute of day it closes (exclusive); at or before
+         *                    startMinute wraps into the next day
+         */
+        public Builder addOpenHours(int dayOfWeek, int startMinute, int endMinute) {
+            int duration = Math.floorMod(endMinute - startMinute, MINUTES_PER_DAY);
+            if (duration == 0) {
+                duration = MINUTES_PER_DAY;
+            }
+
+            int first = (dayOfWeek - Calendar.SUNDAY) * MINUTES_PER_DAY + startMinute;
+            for (int i = 0; i < duration; i++) {
+                int minute = (first + i) % MINUTES_PER_WEEK;
+                openBits[minute >>> 6] |= 1L << minute;
+            }
+            return this;
+        }
+
+        /**
+         * @param isoDate local date as yyyy-MM-dd; malformed values are ignored
+         */
+        public Builder addHoliday(String isoDate) {
+            String[] parts = isoDate.trim().split("-");
+            if (parts.length != 3) {
+                return this;
+            }
+
+            try {
+                GregorianCalendar date = new GregorianCalendar(TimeZone.getTimeZone("UTC"));
+                date.clear();
+                date.set(Integer.parseInt(parts[0]), Integer.parseInt(parts[1]) - 1, Integer.parseInt(parts[2]));
+                holidayEpochDays.add(Math.floorDiv(date.getTimeInMillis(), MILLIS_PER_DAY));
+            } catch (NumberFormatException e) {
+                // Ignore malformed dates rather than failing the whole calendar
+            }
+            return this;
+        }
+
+        public BusinessCalendar build() {
+            return new BusinessCalendar(timeZone, openBits.clone(), new HashSet<>(holidayEpochDays));
+        }
+    }
+}
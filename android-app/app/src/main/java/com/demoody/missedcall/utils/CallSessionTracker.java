@@ -0,0 +1,371 @@
+package com.demoody.missedcall.utils;
+
+import android.content.Context;
+import android.util.AtomicFile;
+import android.util.Log;
+
+import com.demoody.missedcall.MissedCallApplication;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Tracks every ringing call separately, keyed by number and subscription,
+ * so call waiting and dual-SIM overlap no longer overwrite each other.
+ * Sessions live in a fixed array of immutable entries swapped with CAS;
+ * repeated broadcasts for a state already recorded change nothing and
+ * allocate nothing. Each real transition marks a small journal dirty; the
+ * disk pool writes it shortly after, coalescing a burst into one write, so
+ * a call that rang before the process was killed is still reported when
+ * IDLE arrives in the new process.
+ *
+ * <p>A call that stops ringing while another call is in progress cannot be
+ * told apart from one answered by swapping, so it is not reported here;
+ * the call log reconciliation picks those up if they were missed.
+ */
+public final class CallSessionTracker {
+
+    private static final String TAG = "CallSessionTracker";
+
+    public static final int UNKNOWN_SUBSCRIPTION = -1;
+
+    static final int MAX_SESSIONS = 8;
+
+    // A session this old was left behind by a lost IDLE and is dropped on load
+    private static final long MAX_SESSION_AGE_MS = TimeUnit.HOURS.toMillis(2);
+
+    private static final String JOURNAL_NAME = "call_sessions.journal";
+    private static final String JOURNAL_HEADER = "v1";
+
+    // Longer numbers are truncated in the journal so one fixed buffer always fits
+    private static final int MAX_JOURNAL_NUMBER_LENGTH = 64;
+    private static final int JOURNAL_BUFFER_SIZE = 16 + MAX_SESSIONS * (MAX_JOURNAL_NUMBER_LENGTH + 64);
+
+    private enum State { RINGING, ANSWERED, AMBIGUOUS }
+
+    private static final class Session {
+        final String number;
+        final int subscriptionId;
+        final long ringTime;
+        // Another call was already in progress when this one started ringing
+        final boolean waiting;
+        final State state;
+
+        Session(String number, int subscriptionId, long ringTime, boolean waiting, State state) {
+            this.number = number;
+            this.subscriptionId = subscriptionId;
+            this.ringTime = ringTime;
+            this.waiting = waiting;
+            this.state = state;
+        }
+
+        Session withState(State newState) {
+            return new Session(number, subscriptionId, ringTime, waiting, newState);
+        }
+
+        boolean onSubscription(int subscription) {
+            return subscription == UNKNOWN_SUBSCRIPTION
+                || subscriptionId == UNKNOWN_SUBSCRIPTION
+                || subscriptionId == subscription;
+        }
+    }
+
+    /** A call that rang and was never answered. */
+    public static final class MissedCall {
+        public final String number;
+        public final int subscriptionId;
+        public final long ringTime;
+
+        MissedCall(String number, int subscriptionId, long ringTime) {
+            this.number = number;
+            this.subscriptionId = subscriptionId;
+            this.ringTime = ringTime;
+        }
+    }
+
+    private static volatile CallSessionTracker INSTANCE;
+
+    private final AtomicReferenceArray<Session> sessions = new AtomicReferenceArray<>(MAX_SESSIONS);
+    private final AtomicFile journal;
+    private final Executor journalExecutor;
+    private final AtomicBoolean journalDirty = new AtomicBoolean();
+    private final Runnable writeJournal = this::writeJournal;
+    // Only touched by the journal write, which the dirty flag keeps to one at a time
+    private final byte[] journalBuffer = new byte[JOURNAL_BUFFER_SIZE];
+
+    // Set while any call is off hook, including outgoing calls the tracker has no session for
+    private volatile boolean offhook;
+
+    private CallSessionTracker(Context context) {
+        this.journal = new AtomicFile(new File(context.getNoBackupFilesDir(), JOURNAL_NAME));
+        this.journalExecutor = context instanceof MissedCallApplication
+            ? ((MissedCallApplication) context).getExecutors().diskIO()
+            : Executors.newSingleThreadExecutor();
+        restore(System.currentTimeMillis());
+    }
+
+    public static CallSessionTracker getInstance(Context context) {
+        if (INSTANCE == null) {
+            synchronized (CallSessionTracker.class) {
+                if (INSTANCE == null) {
+                    INSTANCE = new CallSessionTracker(context.getApplicationContext());
+                }
+            }
+        }
+        return INSTANCE;
+    }
+
+    public void onRinging(String number, int subscriptionId, long now) {
+        if (number == null || number.isEmpty()) {
+            // Android 10+ sends each state twice, once without the number
+            return;
+        }
+
+        boolean waiting = offhook || hasSessionIn(State.ANSWERED);
+
+        for (;;) {
+            int free = -1;
+            int oldest = 0;
+            long oldestTime = Long.MAX_VALUE;
+            Session existing = null;
+            int existingIndex = -1;
+
+            for (int i = 0; i < MAX_SESSIONS; i++) {
+                Session session = sessions.get(i);
+                if (session == null) {
+                    if (free < 0) {
+                        free = i;
+                    }
+                } else if (session.number.equals(number) && session.onSubscription(subscriptionId)) {
+                    existing = session;
+                    existingIndex = i;
+                    break;
+                } else if (session.ringTime < oldestTime) {
+                    oldestTime = session.ringTime;
+                    oldest = i;
+                }
+            }
+
+            if (existing != null && existing.state == State.RINGING) {
+                return;
+            }
+
+            Session ringing = new Session(number, subscriptionId, now, waiting, State.RINGING);
+            int slot = existingIndex >= 0 ? existingIndex : free >= 0 ? free : oldest;
+            Session expected = existingIndex >= 0 ? existing : free >= 0 ? null : sessions.get(oldest);
+
+            if (sessions.compareAndSet(slot, expected, ringing)) {
+                persist();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Something went off hook. A session that was ringing on its own was
+     * answered; one that rang during another call is ambiguous.
+     */
+    public void onOffhook(int subscriptionId) {
+        boolean changed = !offhook;
+        offhook = true;
+
+        for (int i = 0; i < MAX_SESSIONS; i++) {
+            Session session = sessions.get(i);
+            while (session != null && session.state == State.RINGING && session.onSubscription(subscriptionId)) {
+                Session updated = session.withState(session.waiting ? State.AMBIGUOUS : State.ANSWERED);
+                if (sessions.compareAndSet(i, session, updated)) {
+                    changed = true;
+                    break;
+                }
+                session = sessions.get(i);
+            }
+        }
+
+        if (changed) {
+            persist();
+        }
+    }
+
+    /**
+     * All calls on the subscription ended. Returns the calls that rang and
+     * were never answered, each exactly once.
+     */
+    public List<MissedCall> onIdle(int subscriptionId) {
+        List<MissedCall> missed = Collections.emptyList();
+        boolean changed = offhook;
+        offhook = false;
+
+        for (int i = 0; i < MAX_SESSIONS; i++) {
+            Session session = sessions.get(i);
+            if (session == null || !session.onSubscription(subscriptionId)) {
+                continue;
+            }
+            // Only the thread that clears the slot reports it
+            if (!sessions.compareAndSet(i, session, null)) {
+                continue;
+            }
+            changed = true;
+
+            if (session.state == State.RINGING) {
+                if (missed.isEmpty()) {
+                    missed = new ArrayList<>(2);
+                }
+                missed.add(new MissedCall(session.number, session.subscriptionId, session.ringTime));
+            } else if (session.state == State.AMBIGUOUS) {
+                Log.d(TAG, "Waiting call ended without a clear outcome, leaving it to call log reconciliation");
+            }
+        }
+
+        if (changed) {
+            persist();
+        }
+        return missed;
+    }
+
+    private boolean hasSessionIn(State state) {
+        for (int i = 0; i < MAX_SESSIONS; i++) {
+            Session session = sessions.get(i);
+            if (session != null && session.state == state) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Marks the journal dirty and, unless a write is already pending, queues
+     * one. Allocation-free on the calling thread.
+     */
+    private void persist() {
+        if (journalDirty.compareAndSet(false, true)) {
+            journalExecutor.execute(writeJournal);
+        }
+    }
+
+    /**
+     * Writes the current sessions. The flag is cleared before the array is
+     * read, so a transition made during the write queues another one and the
+     * last write always holds the latest state.
+     */
+    private void writeJournal() {
+        if (!journalDirty.compareAndSet(true, false)) {
+            return;
+        }
+
+        byte[] out = journalBuffer;
+        int length = appendAscii(out, 0, JOURNAL_HEADER);
+        out[length++] = '|';
+        out[length++] = (byte) (offhook ? '1' : '0');
+        out[length++] = '\n';
+        for (int i = 0; i < MAX_SESSIONS; i++) {
+            Session session = sessions.get(i);
+            if (session != null) {
+                length = appendAscii(out, length, session.state.name());
+                out[length++] = '|';
+                length = appendLong(out, length, session.subscriptionId);
+                out[length++] = '|';
+                length = appendLong(out, length, session.ringTime);
+                out[length++] = '|';
+                out[length++] = (byte) (session.waiting ? '1' : '0');
+                out[length++] = '|';
+                length = appendAscii(out, length, session.number);
+                out[length++] = '\n';
+            }
+        }
+
+        FileOutputStream stream = null;
+        try {
+            stream = journal.startWrite();
+            stream.write(out, 0, length);
+            journal.finishWrite(stream);
+        } catch (IOException e) {
+            if (stream != null) {
+                journal.failWrite(stream);
+            }
+            Log.w(TAG, "Could not write call session journal", e);
+        }
+    }
+
+    private static int appendAscii(byte[] out, int offset, String value) {
+        int length = Math.min(value.length(), MAX_JOURNAL_NUMBER_LENGTH);
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            // Numbers are digits and dial symbols; anything else, including the separator, is dropped to '?'
+            out[offset++] = (byte) (c < 0x80 && c != '|' && c != '\n' ? c : '?');
+        }
+        return offset;
+    }
+
+    private static int appendLong(byte[] out, int offset, long value) {
+        if (value < 0) {
+            out[offset++] = '-';
+            value = -value;
+        }
+        int start = offset;
+        do {
+            out[offset++] = (byte) ('0' + (value % 10));
+            value /= 10;
+        } while (value > 0);
+        // Digits were written least significant first
+        for (int i = start, j = offset - 1; i < j; i++, j--) {
+            byte digit = out[i];
+            out[i] = out[j];
+            out[j] = digit;
+        }
+        return offset;
+    }
+
+    private void restore(long now) {
+        byte[] data;
+        try {
+            data = journal.readFully();
+        } catch (FileNotFoundException e) {
+            return;
+        } catch (IOException e) {
+            Log.w(TAG, "Could not read call session journal", e);
+            return;
+        }
+
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new ByteArrayInputStream(data), StandardCharsets.UTF_8))) {
+            String header = reader.readLine();
+            if (header == null || !header.startsWith(JOURNAL_HEADER + "|")) {
+                return;
+            }
+            offhook = header.endsWith("|1");
+
+            int slot = 0;
+            String line;
+            while ((line = reader.readLine()) != null && slot < MAX_SESSIONS) {
+                // The number is last and may not contain '|', so split into exactly five fields
+                String[] fields = line.split("\\|", 5);
+                if (fields.length != 5) {
+                    continue;
+                }
+                long ringTime = Long.parseLong(fields[2]);
+                if (now - ringTime > MAX_SESSION_AGE_MS) {
+                    continue;
+                }
+                sessions.set(slot++, new Session(fields[4], Integer.parseInt(fields[1]), ringTime,
+                    "1".equals(fields[3]), State.valueOf(fields[0])));
+            }
+            Log.d(TAG, "Restored " + slot + " call sessions");
+        } catch (IOException | IllegalArgumentException e) {
+            Log.w(TAG, "Discarding unreadable call session journal", e);
+        }
+    }
+}
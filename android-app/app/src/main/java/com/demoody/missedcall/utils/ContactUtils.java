@@ -0,0 +1,36 @@
+package com.demoody.missedcall.utils;
+
+import android.Manifest;
+import android.content.Context;
+import android.database.Cursor;
+import android.net.Uri;
+import android.provider.ContactsContract;
+import android.util.Log;
+
+public class ContactUtils {
+    
+    private static final String TAG = "ContactUtils";
+    
+    /**
+     * Returns the contact's display name for the number, or null if it is
+     * not a saved contact or contacts permission has not been granted.
+     */
+    public static String lookupDisplayName(Context context, String phoneNumber) {
+        if (phoneNumber == null || phoneNumber.isEmpty()
+                || !PermissionUtils.hasPermission(context, Manifest.permission.READ_CONTACTS)) {
+            return null;
+        }
+        
+        Uri uri = Uri.withAppendedPath(ContactsContract.PhoneLookup.CONTENT_FILTER_URI, Uri.encode(phoneNumber));
+        String[] projection = {ContactsContract.PhoneLookup.DISPLAY_NAME};
+        
+        try (Cursor cursor = context.getContentResolver().query(uri, projection, null, null, null)) {
+            if (cursor != null && cursor.moveToFirst()) {
+                return cursor.getString(0);
+            }
+        } catch (Exception e) {
+            Log.w(TAG, "Contact lookup failed", e);
+        }
+        return null;
+    }
+}
@@ -0,0 +1,83 @@
+package com.demoody.missedcall.utils;
+
+import com.demoody.missedcall.db.RecentCaller;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-memory LRU of the last accepted call time per phone key, used to drop
+ * repeat calls inside the cooldown window before any database work. Entries
+ * older than the window are treated as absent, so the TTL follows the
+ * current cooldown setting.
+ */
+public class CooldownCache {
+
+    static final int DEFAULT_MAX_ENTRIES = 2048;
+
+    private final LinkedHashMap<Long, Long> lastCallTimes;
+    private volatile boolean warm;
+
+    public CooldownCache() {
+        this(DEFAULT_MAX_ENTRIES);
+    }
+
+    public CooldownCache(int maxEntries) {
+        this.lastCallTimes = new LinkedHashMap<Long, Long>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Long> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Records the call and returns true if the number is outside its
+     * cooldown window; returns false for a repeat call, leaving the original
+     * window in place.
+     */
+    public synchronized boolean tryAcquire(long phoneKey, long callTime, long cooldownMillis) {
+        Long lastCallTime = lastCallTimes.get(phoneKey);
+
+        if (lastCallTime != null && Math.abs(callTime - lastCallTime) < cooldownMillis) {
+            return false;
+        }
+
+        lastCallTimes.put(phoneKey, callTime);
+        return true;
+    }
+
+    /**
+     * Undoes {@link #tryAcquire} for a call that could not be stored, so the
+     * caller's next call is not suppressed. A newer entry is left alone.
+     */
+    public synchronized void release(long phoneKey, long callTime) {
+        Long lastCallTime = lastCallTimes.get(phoneKey);
+        if (lastCallTime != null && lastCallTime == callTime) {
+            lastCallTimes.remove(phoneKey);
+        }
+    }
+
+    /**
+     * Seeds the cache from recently stored calls. Entries accepted since
+     * startup are kept if they are newer.
+     */
+    public synchronized void warm(List<RecentCaller> callers) {
+        for (RecentCaller caller : callers) {
+            Long existing = lastCallTimes.get(caller.phoneKey);
+            if (existing == null || existing < caller.callTime) {
+                lastCallTimes.put(caller.phoneKey, caller.callTime);
+            }
+        }
+        warm = true;
+    }
+
+    /**
+     * False until {@link #warm(List)} has run; until then a miss does not
+     * prove the number is outside its cooldown.
+     */
+    public boolean isWarm() {
+        return warm;
+    }
+}
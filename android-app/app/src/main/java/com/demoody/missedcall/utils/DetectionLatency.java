@@ -0,0 +1,71 @@
+package com.demoody.missedcall.utils;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Time from a missed call being detected (the phone going IDLE) to its row
+ * being committed, recorded separately for in-process detection and for
+ * the broadcast receiver path. Includes the ingestion commit window.
+ * Sources with nothing recorded are left out of {@link #describe()}.
+ */
+public final class DetectionLatency {
+
+    public static final int SOURCE_IN_PROCESS = 0;
+    public static final int SOURCE_RECEIVER = 1;
+    // Recovered from the call log; no detection time, so never recorded
+    public static final int SOURCE_CALL_LOG = 2;
+
+    private static final String[] SOURCE_NAMES = { "inProcess", "receiver", "callLog" };
+
+    private final AtomicLong[] counts = newCounters();
+    private final AtomicLong[] totalNanos = newCounters();
+    private final AtomicLong[] maxNanos = newCounters();
+
+    private static AtomicLong[] newCounters() {
+        AtomicLong[] counters = new AtomicLong[SOURCE_NAMES.length];
+        for (int i = 0; i < counters.length; i++) {
+            counters[i] = new AtomicLong();
+        }
+        return counters;
+    }
+
+    public void record(int source, long latencyNanos) {
+        counts[source].incrementAndGet();
+        totalNanos[source].addAndGet(latencyNanos);
+
+        long max;
+        while (latencyNanos > (max = maxNanos[source].get())) {
+            if (maxNanos[source].compareAndSet(max, latencyNanos)) {
+                break;
+            }
+        }
+    }
+
+    public long getCount(int source) {
+        return counts[source].get();
+    }
+
+    public long getAverageMillis(int source) {
+        long count = counts[source].get();
+        return count == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(totalNanos[source].get() / count);
+    }
+
+    public long getMaxMillis(int source) {
+        return TimeUnit.NANOSECONDS.toMillis(maxNanos[source].get());
+    }
+
+    public String describe() {
+        StringBuilder out = new StringBuilder("detect-to-persist:");
+        for (int source = 0; source < SOURCE_NAMES.length; source++) {
+            if (getCount(source) == 0) {
+                continue;
+            }
+            out.append(' ').append(SOURCE_NAMES[source])
+                .append("=").append(getCount(source))
+                .append(" (avg ").append(getAverageMillis(source)).append("ms")
+                .append(", max ").append(getMaxMillis(source)).append("ms)");
+        }
+        return out.toString();
+    }
+}
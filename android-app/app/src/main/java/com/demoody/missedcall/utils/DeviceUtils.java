@@ -9,8 +9,35 @@ import java.security.NoSuchAlgorithmException;
 
 public class DeviceUtils {
     
-    @SuppressLint("HardwareIds")
+    private static volatile String cachedDeviceId;
+    
+    /**
+     * Returns the hashed device identifier. It is computed once, then kept in
+     * memory and in preferences so it stays stable even when the fallback
+     * identifier had to be generated.
+     */
     public static String getDeviceId(Context context) {
+        String deviceId = cachedDeviceId;
+        if (deviceId != null) {
+            return deviceId;
+        }
+        
+        synchronized (DeviceUtils.class) {
+            if (cachedDeviceId == null) {
+                PreferenceManager preferences = new PreferenceManager(context.getApplicationContext());
+                String stored = preferences.getDeviceId();
+                if (stored.isEmpty()) {
+                    stored = computeDeviceId(context);
+                    preferences.setDeviceId(stored);
+                }
+                cachedDeviceId = stored;
+            }
+            return cachedDeviceId;
+        }
+    }
+    
+    @SuppressLint("HardwareIds")
+    private static String computeDeviceId(Context context) {
         // Use Android ID as device identifier
         String androidId = Settings.Secure.getString(context.getContentResolver(), Settings.Secure.ANDROID_ID);
         
@@ -0,0 +1,229 @@
+package com.demoody.missedcall.utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A message template parsed once into literal and placeholder segments.
+ * {business_name} and {callback_url} come from settings and are folded into
+ * the literals at compile time; {name} and {time} are filled per call.
+ * Unknown placeholders are kept as literal text.
+ */
+public final class MessageTemplate {
+
+    public static final String PLACEHOLDER_NAME = "{name}";
+    public static final String PLACEHOLDER_TIME = "{time}";
+    public static final String PLACEHOLDER_BUSINESS_NAME = "{business_name}";
+    public static final String PLACEHOLDER_CALLBACK_URL = "{callback_url}";
+
+    // Room reserved for per-call values when sizing buffers and segment estimates
+    static final int NAME_BUDGET = 20;
+    static final int TIME_BUDGET = 8;
+
+    private static final int GSM7_SINGLE_LIMIT = 160;
+    private static final int GSM7_MULTIPART_LIMIT = 153;
+    private static final int UCS2_SINGLE_LIMIT = 70;
+    private static final int UCS2_MULTIPART_LIMIT = 67;
+
+    private static final String GSM7_BASIC =
+        "@\u00A3$\u00A5\u00E8\u00E9\u00F9\u00EC\u00F2\u00C7\n\u00D8\u00F8\r\u00C5\u00E5\u0394_\u03A6\u0393\u039B\u03A9\u03A0\u03A8\u03A3\u0398\u039E\u00C6\u00E6\u00DF\u00C9 !\"#\u00A4%&'()*+,-./0123456789:;<=>?"
+        + "\u00A1ABCDEFGHIJKLMNOPQRSTUVWXYZ\u00C4\u00D6\u00D1\u00DC\u00A7\u00BFabcdefghijklmnopqrstuvwxyz\u00E4\u00F6\u00F1\u00FC\u00E0";
+    // Extension table characters cost two septets (escape + char)
+    private static final String GSM7_EXTENDED = "^{}\\[~]|\u20AC\f";
+
+    private enum Kind { LITERAL, NAME, TIME }
+
+    private static final class Segment {
+        final Kind kind;
+        final String text;
+
+        Segment(Kind kind, String text) {
+            this.kind = kind;
+            this.text = text;
+        }
+    }
+
+    private final String source;
+    private final List<Segment> segments;
+    private final int literalLength;
+    private final boolean hasName;
+    private final boolean hasTime;
+    private final boolean unicode;
+    private final int estimatedSegments;
+
+    private MessageTemplate(String source, List<Segment> segments, int literalLength,
+                            boolean hasName, boolean hasTime, boolean unicode, int estimatedSegments) {
+        this.source = source;
+        this.segments = segments;
+        this.literalLength = literalLength;
+        this.hasName = hasName;
+        this.hasTime = hasTime;
+        this.unicode = unicode;
+        this.estimatedSegments = estimatedSegments;
+    }
+
+    public static MessageTemplate compile(String source, String businessName, String callbackUrl) {
+        if (source == null) {
+            source = "";
+        }
+
+        List<Segment> segments = new ArrayList<>();
+        StringBuilder literal = new StringBuilder(source.length());
+        boolean hasName = false;
+        boolean hasTime = false;
+
+        int i = 0;
+        while (i < source.length()) {
+            int open = source.indexOf('{', i);
+            if (open < 0) {
+                literal.append(source, i, source.length());
+                break;
+            }
+            literal.append(source, i, open);
+
+            int close = source.indexOf('}', open);
+            if (close < 0) {
+                literal.append(source, open, source.length());
+                break;
+            }
+
+            String placeholder = source.substring(open, close + 1);
+            if (PLACEHOLDER_NAME.equals(placeholder)) {
+                flushLiteral(segments, literal);
+                segments.add(new Segment(Kind.NAME, null));
+                hasName = true;
+            } else if (PLACEHOLDER_TIME.equals(placeholder)) {
+                flushLiteral(segments, literal);
+                segments.add(new Segment(Kind.TIME, null));
+                hasTime = true;
+            } else if (PLACEHOLDER_BUSINESS_NAME.equals(placeholder)) {
+                literal.append(businessName != null ? businessName : "");
+            } else if (PLACEHOLDER_CALLBACK_URL.equals(placeholder)) {
+                literal.append(callbackUrl != null ? callbackUrl : "");
+            } else {
+                literal.append(placeholder);
+            }
+            i = close + 1;
+        }
+        flushLiteral(segments, literal);
+
+        int literalLength = 0;
+        int septets = 0;
+        boolean unicode = false;
+        for (Segment segment : segments) {
+            if (segment.kind == Kind.LITERAL) {
+                literalLength += segment.text.length();
+                int cost = gsm7Length(segment.text);
+                if (cost < 0) {
+                    unicode = true;
+                } else {
+                    septets += cost;
+                }
+            }
+        }
+
+        int dynamicBudget = (hasName ? NAME_BUDGET : 0) + (hasTime ? TIME_BUDGET : 0);
+        int estimatedSegments = unicode
+            ? segmentCount(literalLength + dynamicBudget, UCS2_SINGLE_LIMIT, UCS2_MULTIPART_LIMIT)
+            : segmentCount(septets + dynamicBudget, GSM7_SINGLE_LIMIT, GSM7_MULTIPART_LIMIT);
+
+        return new MessageTemplate(source, Collections.unmodifiableList(segments), literalLength,
+            hasName, hasTime, unicode, estimatedSegments);
+    }
+
+    private static void flushLiteral(List<Segment> segments, StringBuilder literal) {
+        if (literal.length() > 0) {
+            segments.add(new Segment(Kind.LITERAL, literal.toString()));
+            literal.setLength(0);
+        }
+    }
+
+    /**
+     * Fills the per-call placeholders. Templates without any are returned
+     * as the precomputed literal with no copying.
+     */
+    public String render(String name, String time) {
+        if (segments.size() == 1 && segments.get(0).kind == Kind.LITERAL) {
+            return segments.get(0).text;
+        }
+
+        int capacity = literalLength
+            + (hasName ? (name != null ? name.length() : 0) : 0)
+            + (hasTime ? (time != null ? time.length() : 0) : 0);
+        StringBuilder out = new StringBuilder(capacity);
+
+        for (int i = 0, n = segments.size(); i < n; i++) {
+            Segment segment = segments.get(i);
+            switch (segment.kind) {
+                case LITERAL:
+                    out.append(segment.text);
+                    break;
+                case NAME:
+                    if (name != null) {
+                        out.append(name);
+                    }
+                    break;
+                case TIME:
+                    if (time != null) {
+                        out.append(time);
+                    }
+                    break;
+            }
+        }
+        return out.toString();
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public boolean usesName() {
+        return hasName;
+    }
+
+    public boolean usesTime() {
+        return hasTime;
+    }
+
+    /**
+     * True if the literal text forces UCS-2, which cuts each SMS segment
+     * from 160 to 70 characters.
+     */
+    public boolean isUnicode() {
+        return unicode;
+    }
+
+    /**
+     * SMS segments a rendered message is expected to take, allowing
+     * {@link #NAME_BUDGET} and {@link #TIME_BUDGET} for the per-call values.
+     */
+    public int getEstimatedSegments() {
+        return estimatedSegments;
+    }
+
+    /**
+     * Septets needed to send the text in GSM-7, or -1 if it needs UCS-2.
+     */
+    static int gsm7Length(CharSequence text) {
+        int septets = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (GSM7_BASIC.indexOf(c) >= 0) {
+                septets++;
+            } else if (GSM7_EXTENDED.indexOf(c) >= 0) {
+                septets += 2;
+            } else {
+                return -1;
+            }
+        }
+        return septets;
+    }
+
+    private static int segmentCount(int units, int singleLimit, int multipartLimit) {
+        if (units <= singleLimit) {
+            return 1;
+        }
+        return (units + multipartLimit - 1) / multipartLimit;
+    }
+}
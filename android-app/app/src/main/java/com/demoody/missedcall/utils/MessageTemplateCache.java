@@ -0,0 +1,51 @@
+package com.demoody.missedcall.utils;
+
+import android.util.Log;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Compiled message templates keyed by the settings version they were
+ * scheduled under. Calls queued under the current version share one
+ * compiled template; a few older versions are kept for calls still pending
+ * from before a settings change.
+ */
+public class MessageTemplateCache {
+
+    private static final String TAG = "MessageTemplateCache";
+
+    static final int MAX_VERSIONS = 4;
+
+    private final LinkedHashMap<Long, MessageTemplate> templates =
+        new LinkedHashMap<Long, MessageTemplate>(MAX_VERSIONS, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, MessageTemplate> eldest) {
+                return size() > MAX_VERSIONS;
+            }
+        };
+
+    /**
+     * Returns the compiled form of {@code source}, compiling it only the
+     * first time it is seen for {@code version}.
+     */
+    public MessageTemplate get(long version, String source, Settings settings) {
+        return get(version, source, settings.businessName, settings.callbackUrl);
+    }
+
+    synchronized MessageTemplate get(long version, String source, String businessName, String callbackUrl) {
+        MessageTemplate template = templates.get(version);
+        if (template != null && template.getSource().equals(source)) {
+            return template;
+        }
+
+        template = MessageTemplate.compile(source, businessName, callbackUrl);
+        templates.put(version, template);
+
+        if (template.getEstimatedSegments() > 1) {
+            Log.w(TAG, "Template v" + version + " needs about " + template.getEstimatedSegments()
+                + (template.isUnicode() ? " UCS-2" : " GSM-7") + " SMS segments per message");
+        }
+        return template;
+    }
+}
@@ -15,7 +15,8 @@ public class PermissionUtils {
     };
     
     public static final String[] OPTIONAL_PERMISSIONS = {
-        Manifest.permission.POST_NOTIFICATIONS
+        Manifest.permission.POST_NOTIFICATIONS,
+        Manifest.permission.READ_CONTACTS // {name} in message templates
     };
     
     public static boolean hasRequiredPermissions(Context context) {
@@ -0,0 +1,105 @@
+package com.demoody.missedcall.utils;
+
+import android.content.Context;
+import android.telephony.PhoneNumberUtils;
+import android.telephony.TelephonyManager;
+import android.text.TextUtils;
+
+import java.util.Locale;
+
+/**
+ * Converts incoming numbers to E.164 so the same caller is stored the same
+ * way whether the network reports "+91...", "0..." or a spaced local form, and
+ * derives the 64-bit key that missed_calls is indexed on.
+ */
+public class PhoneNumberNormalizer {
+
+    // E.164 numbers have at most 15 digits, which fit below DIGIT_COUNT_SHIFT
+    private static final int MAX_NUMERIC_KEY_DIGITS = 15;
+    private static final int DIGIT_COUNT_SHIFT = 56;
+    private static final long PLUS_PREFIX_BIT = 1L << 60;
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final String countryIso;
+
+    public PhoneNumberNormalizer(Context context) {
+        this(detectCountryIso(context));
+    }
+
+    public PhoneNumberNormalizer(String countryIso) {
+        this.countryIso = countryIso;
+    }
+
+    /**
+     * Returns the E.164 form of the number, or the number stripped of
+     * formatting if it cannot be parsed for the current country (short
+     * codes, alphanumeric senders).
+     */
+    public String normalize(String rawNumber) {
+        if (rawNumber == null) {
+            return "";
+        }
+
+        if (countryIso != null) {
+            String e164 = PhoneNumberUtils.formatNumberToE164(rawNumber, countryIso);
+            if (e164 != null) {
+                return e164;
+            }
+        }
+
+        String stripped = PhoneNumberUtils.normalizeNumber(rawNumber);
+        return TextUtils.isEmpty(stripped) ? rawNumber.trim() : stripped;
+    }
+
+    /**
+     * Compact key for a normalized number. Numeric numbers of up to 15 digits
+     * pack the value with the digit count and the "+" prefix above it, so
+     * "+0123", "0123" and "123" stay distinct; anything else is a 64-bit
+     * FNV-1a hash with the sign bit set so the two ranges never collide.
+     */
+    public static long keyOf(String normalizedNumber) {
+        boolean plus = normalizedNumber.startsWith("+");
+        int start = plus ? 1 : 0;
+        int digits = normalizedNumber.length() - start;
+
+        if (digits > 0 && digits <= MAX_NUMERIC_KEY_DIGITS && isDigits(normalizedNumber, start)) {
+            long value = Long.parseLong(normalizedNumber.substring(start));
+            return (plus ? PLUS_PREFIX_BIT : 0L) | ((long) digits << DIGIT_COUNT_SHIFT) | value;
+        }
+
+        long hash = FNV_OFFSET_BASIS;
+        for (int i = 0; i < normalizedNumber.length(); i++) {
+            hash ^= normalizedNumber.charAt(i);
+            hash *= FNV_PRIME;
+        }
+        return hash | Long.MIN_VALUE;
+    }
+
+    private static boolean isDigits(String value, int start) {
+        for (int i = start; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String detectCountryIso(Context context) {
+        TelephonyManager telephonyManager = (TelephonyManager) context.getSystemService(Context.TELEPHONY_SERVICE);
+        if (telephonyManager != null) {
+            String iso = telephonyManager.getSimCountryIso();
+            if (TextUtils.isEmpty(iso)) {
+                iso = telephonyManager.getNetworkCountryIso();
+            }
+            if (!TextUtils.isEmpty(iso)) {
+                return iso.toUpperCase(Locale.US);
+            }
+        }
+
+        String localeCountry = Locale.getDefault().getCountry();
+        return TextUtils.isEmpty(localeCountry) ? null : localeCountry;
+    }
+}
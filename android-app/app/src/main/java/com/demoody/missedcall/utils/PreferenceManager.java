@@ -3,27 +3,49 @@ package com.demoody.missedcall.utils;
 import android.content.Context;
 import android.content.SharedPreferences;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
 public class PreferenceManager {
     
-    private static final String PREF_NAME = "missed_call_prefs";
+    public static final String PREF_NAME = "missed_call_prefs";
     
     // Preference keys
     private static final String KEY_AUTO_RESPONDER_ENABLED = "auto_responder_enabled";
     private static final String KEY_MESSAGE_TEMPLATE = "message_template";
     private static final String KEY_DELAY_MINUTES = "delay_minutes";
+    private static final String KEY_COOLDOWN_MINUTES = "cooldown_minutes";
+    private static final String KEY_BUSINESS_NAME = "business_name";
+    private static final String KEY_CALLBACK_URL = "callback_url";
     private static final String KEY_BUSINESS_HOURS_ENABLED = "business_hours_enabled";
     private static final String KEY_BUSINESS_START_HOUR = "business_start_hour";
     private static final String KEY_BUSINESS_END_HOUR = "business_end_hour";
+    private static final String KEY_BUSINESS_DAYS = "business_days";
+    private static final String KEY_BUSINESS_TIMEZONE = "business_timezone";
+    private static final String KEY_BUSINESS_HOLIDAYS = "business_holidays";
     private static final String KEY_API_BASE_URL = "api_base_url";
+    private static final String KEY_DISPATCH_NETWORK = "dispatch_network";
     private static final String KEY_DEVICE_ID = "device_id";
     private static final String KEY_API_TOKEN = "api_token";
     private static final String KEY_FIRST_RUN = "first_run";
+    private static final String KEY_RETENTION_DAYS = "retention_days";
+    private static final String KEY_RETENTION_MAX_ROWS = "retention_max_rows";
+    private static final String KEY_RETENTION_SUMMARIES = "retention_summaries";
     
     // Default values
     private static final String DEFAULT_MESSAGE = "Hello! We missed your call. We're sorry we couldn't pick up. Reply CALLBACK or visit our website and we'll get back to you shortly. Reply STOP to opt out.";
     private static final int DEFAULT_DELAY_MINUTES = 5;
+    private static final int DEFAULT_COOLDOWN_MINUTES = 60;
     private static final int DEFAULT_BUSINESS_START = 9; // 9 AM
     private static final int DEFAULT_BUSINESS_END = 18; // 6 PM
+    private static final int ALL_DAYS_MASK = 0x7F;
+    
+    public static final String DISPATCH_NETWORK_ANY = "any";
+    public static final String DISPATCH_NETWORK_UNMETERED = "unmetered";
+    private static final int DEFAULT_RETENTION_DAYS = 180;
+    private static final int DEFAULT_RETENTION_MAX_ROWS = 50000;
     
     private SharedPreferences prefs;
     
@@ -56,6 +78,35 @@ public class PreferenceManager {
         prefs.edit().putInt(KEY_DELAY_MINUTES, minutes).apply();
     }
     
+    /**
+     * Minutes after a reply during which further calls from the same number
+     * are ignored. 0 disables the cooldown.
+     */
+    public int getCooldownMinutes() {
+        return prefs.getInt(KEY_COOLDOWN_MINUTES, DEFAULT_COOLDOWN_MINUTES);
+    }
+    
+    public void setCooldownMinutes(int minutes) {
+        prefs.edit().putInt(KEY_COOLDOWN_MINUTES, minutes).apply();
+    }
+    
+    // Values for the {business_name} and {callback_url} template placeholders
+    public String getBusinessName() {
+        return prefs.getString(KEY_BUSINESS_NAME, "");
+    }
+    
+    public void setBusinessName(String businessName) {
+        prefs.edit().putString(KEY_BUSINESS_NAME, businessName).apply();
+    }
+    
+    public String getCallbackUrl() {
+        return prefs.getString(KEY_CALLBACK_URL, "");
+    }
+    
+    public void setCallbackUrl(String callbackUrl) {
+        prefs.edit().putString(KEY_CALLBACK_URL, callbackUrl).apply();
+    }
+    
     // Business Hours Settings
     public boolean isBusinessHoursEnabled() {
         return prefs.getBoolean(KEY_BUSINESS_HOURS_ENABLED, false);
@@ -81,6 +132,85 @@ public class PreferenceManager {
         prefs.edit().putInt(KEY_BUSINESS_END_HOUR, hour).apply();
     }
     
+    /**
+     * Open days as a bitmask, bit 0 = Sunday. Stored as the set of
+     * Calendar day numbers ("1" to "7") the settings screen writes.
+     */
+    public int getBusinessDaysMask() {
+        Set<String> days = prefs.getStringSet(KEY_BUSINESS_DAYS, null);
+        if (days == null) {
+            return ALL_DAYS_MASK;
+        }
+        
+        int mask = 0;
+        for (String day : days) {
+            try {
+                int dayOfWeek = Integer.parseInt(day);
+                if (dayOfWeek >= 1 && dayOfWeek <= 7) {
+                    mask |= 1 << (dayOfWeek - 1);
+                }
+            } catch (NumberFormatException e) {
+                // Ignore unknown values
+            }
+        }
+        return mask;
+    }
+    
+    public void setBusinessDays(Set<String> days) {
+        prefs.edit().putStringSet(KEY_BUSINESS_DAYS, days).apply();
+    }
+    
+    /**
+     * Time zone ID for business hours, or empty to use the device zone.
+     */
+    public String getBusinessTimeZone() {
+        return prefs.getString(KEY_BUSINESS_TIMEZONE, "");
+    }
+    
+    public void setBusinessTimeZone(String timeZoneId) {
+        prefs.edit().putString(KEY_BUSINESS_TIMEZONE, timeZoneId).apply();
+    }
+    
+    /**
+     * Closed dates as yyyy-MM-dd, from a comma separated preference.
+     */
+    public List<String> getBusinessHolidays() {
+        String holidays = prefs.getString(KEY_BUSINESS_HOLIDAYS, "");
+        if (holidays.trim().isEmpty()) {
+            return Collections.emptyList();
+        }
+        return Arrays.asList(holidays.trim().split("\\s*,\\s*"));
+    }
+    
+    public void setBusinessHolidays(String holidays) {
+        prefs.edit().putString(KEY_BUSINESS_HOLIDAYS, holidays).apply();
+    }
+    
+    // Retention Settings
+    public int getRetentionDays() {
+        return prefs.getInt(KEY_RETENTION_DAYS, DEFAULT_RETENTION_DAYS);
+    }
+    
+    public void setRetentionDays(int days) {
+        prefs.edit().putInt(KEY_RETENTION_DAYS, days).apply();
+    }
+    
+    public int getRetentionMaxRows() {
+        return prefs.getInt(KEY_RETENTION_MAX_ROWS, DEFAULT_RETENTION_MAX_ROWS);
+    }
+    
+    public void setRetentionMaxRows(int maxRows) {
+        prefs.edit().putInt(KEY_RETENTION_MAX_ROWS, maxRows).apply();
+    }
+    
+    public boolean isRetentionSummariesEnabled() {
+        return prefs.getBoolean(KEY_RETENTION_SUMMARIES, true);
+    }
+    
+    public void setRetentionSummariesEnabled(boolean enabled) {
+        prefs.edit().putBoolean(KEY_RETENTION_SUMMARIES, enabled).apply();
+    }
+    
     // API Settings
     public String getApiBaseUrl() {
         return prefs.getString(KEY_API_BASE_URL, "");
@@ -90,6 +220,18 @@ public class PreferenceManager {
         prefs.edit().putString(KEY_API_BASE_URL, url).apply();
     }
     
+    /**
+     * {@link #DISPATCH_NETWORK_ANY} or {@link #DISPATCH_NETWORK_UNMETERED}
+     * (hold messages until Wi-Fi or another unmetered network is up).
+     */
+    public String getDispatchNetwork() {
+        return prefs.getString(KEY_DISPATCH_NETWORK, DISPATCH_NETWORK_ANY);
+    }
+    
+    public void setDispatchNetwork(String dispatchNetwork) {
+        prefs.edit().putString(KEY_DISPATCH_NETWORK, dispatchNetwork).apply();
+    }
+    
     public String getDeviceId() {
         return prefs.getString(KEY_DEVICE_ID, "");
     }
@@ -121,6 +263,7 @@ public class PreferenceManager {
             .putBoolean(KEY_AUTO_RESPONDER_ENABLED, false)
             .putString(KEY_MESSAGE_TEMPLATE, DEFAULT_MESSAGE)
             .putInt(KEY_DELAY_MINUTES, DEFAULT_DELAY_MINUTES)
+            .putInt(KEY_COOLDOWN_MINUTES, DEFAULT_COOLDOWN_MINUTES)
             .putBoolean(KEY_BUSINESS_HOURS_ENABLED, false)
             .putInt(KEY_BUSINESS_START_HOUR, DEFAULT_BUSINESS_START)
             .putInt(KEY_BUSINESS_END_HOUR, DEFAULT_BUSINESS_END)
@@ -0,0 +1,71 @@
+package com.demoody.missedcall.utils;
+
+import java.util.TimeZone;
+
+/**
+ * Immutable snapshot of the app's preferences. Read it through
+ * {@link SettingsRepository#get()}; write through {@link PreferenceManager}
+ * and a new snapshot is published.
+ */
+public final class Settings {
+
+    public final long version;
+
+    public final boolean autoResponderEnabled;
+    public final String messageTemplate;
+    public final int delayMinutes;
+    public final int cooldownMinutes;
+    public final String businessName;
+    public final String callbackUrl;
+
+    public final boolean businessHoursEnabled;
+    public final int businessStartHour;
+    public final int businessEndHour;
+    public final BusinessCalendar businessCalendar;
+
+    public final int retentionDays;
+    public final int retentionMaxRows;
+    public final boolean retentionSummariesEnabled;
+
+    public final String apiBaseUrl;
+    public final boolean requireUnmeteredNetwork;
+    public final String deviceId;
+
+    // Derived once per snapshot so the call path does no arithmetic on boxed values
+    public final long delayMillis;
+    public final long cooldownMillis;
+
+    Settings(PreferenceManager preferences, long version) {
+        this.version = version;
+
+        this.autoResponderEnabled = preferences.isAutoResponderEnabled();
+        this.messageTemplate = preferences.getMessageTemplate();
+        this.delayMinutes = preferences.getDelayMinutes();
+        this.cooldownMinutes = preferences.getCooldownMinutes();
+        this.businessName = preferences.getBusinessName();
+        this.callbackUrl = preferences.getCallbackUrl();
+
+        this.businessHoursEnabled = preferences.isBusinessHoursEnabled();
+        this.businessStartHour = preferences.getBusinessStartHour();
+        this.businessEndHour = preferences.getBusinessEndHour();
+        String timeZoneId = preferences.getBusinessTimeZone();
+        this.businessCalendar = BusinessCalendar.weekly(
+            timeZoneId.isEmpty() ? TimeZone.getDefault() : TimeZone.getTimeZone(timeZoneId),
+            preferences.getBusinessDaysMask(),
+            businessStartHour,
+            businessEndHour,
+            preferences.getBusinessHolidays());
+
+        this.retentionDays = preferences.getRetentionDays();
+        this.retentionMaxRows = preferences.getRetentionMaxRows();
+        this.retentionSummariesEnabled = preferences.isRetentionSummariesEnabled();
+
+        this.apiBaseUrl = preferences.getApiBaseUrl();
+        this.requireUnmeteredNetwork =
+            PreferenceManager.DISPATCH_NETWORK_UNMETERED.equals(preferences.getDispatchNetwork());
+        this.deviceId = preferences.getDeviceId();
+
+        this.delayMillis = delayMinutes * 60 * 1000L;
+        this.cooldownMillis = cooldownMinutes * 60 * 1000L;
+    }
+}
@@ -0,0 +1,60 @@
+package com.demoody.missedcall.utils;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+/**
+ * Process-wide holder of the current {@link Settings} snapshot. Readers get
+ * a single volatile read; the snapshot is rebuilt whenever the preferences
+ * file changes, and each rebuild gets the next version number.
+ */
+public class SettingsRepository {
+
+    private static final String TAG = "SettingsRepository";
+
+    // Kept apart from PREF_NAME so bumping the version does not trigger the listener
+    private static final String STATE_PREF_NAME = "settings_state";
+    private static final String KEY_VERSION = "version";
+
+    private static volatile SettingsRepository INSTANCE;
+
+    private final PreferenceManager preferenceManager;
+    private final SharedPreferences statePrefs;
+    private volatile Settings current;
+
+    // SharedPreferences holds listeners weakly, so keep a strong reference here
+    private final SharedPreferences.OnSharedPreferenceChangeListener listener =
+        (sharedPreferences, key) -> refresh();
+
+    private SettingsRepository(Context context) {
+        this.preferenceManager = new PreferenceManager(context);
+        this.statePrefs = context.getSharedPreferences(STATE_PREF_NAME, Context.MODE_PRIVATE);
+        this.current = new Settings(preferenceManager, statePrefs.getLong(KEY_VERSION, 1));
+
+        context.getSharedPreferences(PreferenceManager.PREF_NAME, Context.MODE_PRIVATE)
+            .registerOnSharedPreferenceChangeListener(listener);
+    }
+
+    public static SettingsRepository getInstance(Context context) {
+        if (INSTANCE == null) {
+            synchronized (SettingsRepository.class) {
+                if (INSTANCE == null) {
+                    INSTANCE = new SettingsRepository(context.getApplicationContext());
+                }
+            }
+        }
+        return INSTANCE;
+    }
+
+    public Settings get() {
+        return current;
+    }
+
+    private synchronized void refresh() {
+        long version = current.version + 1;
+        current = new Settings(preferenceManager, version);
+        statePrefs.edit().putLong(KEY_VERSION, version).apply();
+        Log.d(TAG, "Settings updated to version " + version);
+    }
+}
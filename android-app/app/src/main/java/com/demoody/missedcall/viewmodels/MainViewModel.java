@@ -5,53 +5,54 @@ import android.app.Application;
 import androidx.annotation.NonNull;
 import androidx.lifecycle.AndroidViewModel;
 import androidx.lifecycle.LiveData;
+import androidx.lifecycle.Transformations;
+import androidx.lifecycle.ViewModelKt;
+import androidx.paging.Pager;
+import androidx.paging.PagingConfig;
+import androidx.paging.PagingData;
+import androidx.paging.PagingLiveData;
 
 import com.demoody.missedcall.MissedCallApplication;
+import com.demoody.missedcall.db.AppDatabase;
+import com.demoody.missedcall.db.CallHistoryItem;
+import com.demoody.missedcall.db.CallHistoryPagingSource;
+import com.demoody.missedcall.db.CallStats;
 import com.demoody.missedcall.db.MissedCallDao;
-import com.demoody.missedcall.db.MissedCallEntity;
-
-import java.util.List;
 
 public class MainViewModel extends AndroidViewModel {
     
+    // At most MAX_LOADED_ITEMS rows are held in memory however long the history is
+    private static final int PAGE_SIZE = 30;
+    private static final int PREFETCH_DISTANCE = 15;
+    private static final int INITIAL_LOAD_SIZE = 60;
+    private static final int MAX_LOADED_ITEMS = 200;
+    
     private MissedCallDao missedCallDao;
-    private LiveData<List<MissedCallEntity>> recentCalls;
-    private LiveData<Integer> totalCalls;
-    private LiveData<Integer> sentCount;
-    private LiveData<Integer> failedCount;
-    private LiveData<Integer> pendingCount;
+    private LiveData<PagingData<CallHistoryItem>> callHistory;
+    private LiveData<CallStats> stats;
     
     public MainViewModel(@NonNull Application application) {
         super(application);
         
         MissedCallApplication app = (MissedCallApplication) application;
-        missedCallDao = app.getDatabase().missedCallDao();
+        AppDatabase database = app.getDatabase();
+        missedCallDao = database.missedCallDao();
         
         // Initialize LiveData
-        recentCalls = missedCallDao.getAllCallsLive();
-        totalCalls = missedCallDao.getTotalCount();
-        sentCount = missedCallDao.getCountByStatus("SENT");
-        failedCount = missedCallDao.getCountByStatus("FAILED");
-        pendingCount = missedCallDao.getCountByStatus("PENDING");
-    }
-    
-    public LiveData<List<MissedCallEntity>> getRecentCalls() {
-        return recentCalls;
-    }
-    
-    public LiveData<Integer> getTotalCalls() {
-        return totalCalls;
-    }
-    
-    public LiveData<Integer> getSentCount() {
-        return sentCount;
+        Pager<CallHistoryPagingSource.Key, CallHistoryItem> pager = new Pager<>(
+            new PagingConfig(PAGE_SIZE, PREFETCH_DISTANCE, false, INITIAL_LOAD_SIZE, MAX_LOADED_ITEMS),
+            () -> new CallHistoryPagingSource(database, app.getExecutors().databaseQuery())
+        );
+        callHistory = PagingLiveData.cachedIn(
+            PagingLiveData.getLiveData(pager), ViewModelKt.getViewModelScope(this));
+        stats = Transformations.map(missedCallDao.getStatusCountsLive(), CallStats::from);
     }
     
-    public LiveData<Integer> getFailedCount() {
-        return failedCount;
+    public LiveData<PagingData<CallHistoryItem>> getCallHistory() {
+        return callHistory;
     }
     
-    public LiveData<Integer> getPendingCount() {
-        return pendingCount;
+    public LiveData<CallStats> getStats() {
+        return stats;
     }
 }
\ No newline at end of file
@@ -0,0 +1,157 @@
+package com.demoody.missedcall.workers;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.work.Constraints;
+import androidx.work.ExistingPeriodicWorkPolicy;
+import androidx.work.NetworkType;
+import androidx.work.PeriodicWorkRequest;
+import androidx.work.WorkManager;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+import com.demoody.missedcall.MissedCallApplication;
+import com.demoody.missedcall.db.BlockedNumberDao;
+import com.demoody.missedcall.db.BlockedNumberEntity;
+import com.demoody.missedcall.network.ApiClient;
+import com.demoody.missedcall.network.ApiService;
+import com.demoody.missedcall.network.responses.ApiResponse;
+import com.demoody.missedcall.network.responses.BlockedNumbersResponse;
+import com.demoody.missedcall.utils.Blocklist;
+import com.demoody.missedcall.utils.DeviceUtils;
+import com.demoody.missedcall.utils.PhoneNumberNormalizer;
+
+import retrofit2.Response;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pulls changes to the backend's opt-out list since the last stored cursor
+ * and applies them to the blocked_numbers table and the in-memory
+ * {@link Blocklist}. The cursor is saved after every page, so an
+ * interrupted sync resumes where it stopped.
+ */
+public class BlocklistSyncWorker extends Worker {
+
+    private static final String TAG = "BlocklistSyncWorker";
+
+    private static final String WORK_BLOCKLIST_SYNC = "blocklist_sync";
+    private static final long SYNC_INTERVAL_HOURS = 6;
+
+    private static final String PREF_NAME = "blocklist_state";
+    private static final String KEY_CURSOR = "cursor";
+
+    // Unblocked keys are deleted with one IN (...) query; stay under SQLite's 999 limit
+    static final int PAGE_SIZE = 500;
+    private static final int MAX_PAGES_PER_RUN = 20;
+
+    private final ApiService apiService;
+    private final BlockedNumberDao blockedNumberDao;
+    private final Blocklist blocklist;
+    private final PhoneNumberNormalizer normalizer;
+    private final SharedPreferences state;
+
+    public BlocklistSyncWorker(@NonNull Context context, @NonNull WorkerParameters workerParams) {
+        super(context, workerParams);
+
+        MissedCallApplication app = (MissedCallApplication) context.getApplicationContext();
+        this.apiService = ApiClient.getInstance(context).getApiService();
+        this.blockedNumberDao = app.getDatabase().blockedNumberDao();
+        this.blocklist = app.getBlocklist();
+        this.normalizer = app.getPhoneNumberNormalizer();
+        this.state = context.getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE);
+    }
+
+    public static void schedule(Context context) {
+        Constraints constraints = new Constraints.Builder()
+            .setRequiredNetworkType(NetworkType.CONNECTED)
+            .build();
+
+        PeriodicWorkRequest request = new PeriodicWorkRequest.Builder(
+                BlocklistSyncWorker.class, SYNC_INTERVAL_HOURS, TimeUnit.HOURS)
+            .setConstraints(constraints)
+            .build();
+
+        WorkManager.getInstance(context).enqueueUniquePeriodicWork(
+            WORK_BLOCKLIST_SYNC,
+            ExistingPeriodicWorkPolicy.KEEP,
+            request
+        );
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        String deviceId = DeviceUtils.getDeviceId(getApplicationContext());
+        String cursor = state.getString(KEY_CURSOR, null);
+        int changes = 0;
+
+        try {
+            for (int page = 0; page < MAX_PAGES_PER_RUN && !isStopped(); page++) {
+                Response<ApiResponse<BlockedNumbersResponse>> response =
+                    apiService.getBlockedNumbers(deviceId, cursor, PAGE_SIZE).execute();
+
+                ApiResponse<BlockedNumbersResponse> body = response.body();
+                if (!response.isSuccessful() || body == null || !body.success || body.data == null) {
+                    Log.w(TAG, "Blocklist sync failed: HTTP " + response.code());
+                    return Result.retry();
+                }
+
+                BlockedNumbersResponse delta = body.data;
+                if (delta.numbers != null) {
+                    changes += apply(delta.numbers);
+                }
+
+                if (delta.nextCursor != null) {
+                    cursor = delta.nextCursor;
+                    state.edit().putString(KEY_CURSOR, cursor).apply();
+                }
+
+                if (!delta.hasMore) {
+                    break;
+                }
+            }
+
+            Log.d(TAG, "Blocklist synced, " + changes + " changes, " + blocklist.size() + " blocked");
+            return Result.success();
+
+        } catch (IOException e) {
+            Log.w(TAG, "Blocklist sync failed", e);
+            return Result.retry();
+        }
+    }
+
+    private int apply(List<BlockedNumbersResponse.Entry> entries) {
+        long now = System.currentTimeMillis();
+        List<BlockedNumberEntity> blocked = new ArrayList<>();
+        List<Long> blockedKeys = new ArrayList<>();
+        List<Long> unblockedKeys = new ArrayList<>();
+
+        for (BlockedNumbersResponse.Entry entry : entries) {
+            if (entry == null || entry.phoneNumber == null || entry.phoneNumber.isEmpty()) {
+                continue;
+            }
+
+            // Same normalization as incoming calls, so formatting differences still match
+            String normalized = normalizer.normalize(entry.phoneNumber);
+            long phoneKey = PhoneNumberNormalizer.keyOf(normalized);
+
+            if (entry.blocked) {
+                blocked.add(new BlockedNumberEntity(phoneKey, normalized, now));
+                blockedKeys.add(phoneKey);
+            } else {
+                unblockedKeys.add(phoneKey);
+            }
+        }
+
+        blockedNumberDao.applyDelta(blocked, unblockedKeys);
+        blocklist.apply(blockedKeys, unblockedKeys);
+        return blockedKeys.size() + unblockedKeys.size();
+    }
+}
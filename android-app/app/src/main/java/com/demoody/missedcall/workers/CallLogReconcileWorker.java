@@ -0,0 +1,57 @@
+package com.demoody.missedcall.workers;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.work.ExistingPeriodicWorkPolicy;
+import androidx.work.PeriodicWorkRequest;
+import androidx.work.WorkManager;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+import com.demoody.missedcall.MissedCallApplication;
+import com.demoody.missedcall.services.CallLogReconciler;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodic sweep of the call log through {@link CallLogReconciler}, for
+ * calls missed while neither the service nor its observer was running.
+ */
+public class CallLogReconcileWorker extends Worker {
+
+    private static final String TAG = "CallLogReconcileWorker";
+
+    private static final String WORK_CALL_LOG_RECONCILE = "call_log_reconcile";
+    private static final long SWEEP_INTERVAL_MINUTES = 30;
+
+    private final CallLogReconciler reconciler;
+
+    public CallLogReconcileWorker(@NonNull Context context, @NonNull WorkerParameters workerParams) {
+        super(context, workerParams);
+
+        MissedCallApplication app = (MissedCallApplication) context.getApplicationContext();
+        this.reconciler = app.getCallLogReconciler();
+    }
+
+    public static void schedule(Context context) {
+        PeriodicWorkRequest request = new PeriodicWorkRequest.Builder(
+                CallLogReconcileWorker.class, SWEEP_INTERVAL_MINUTES, TimeUnit.MINUTES)
+            .build();
+
+        WorkManager.getInstance(context).enqueueUniquePeriodicWork(
+            WORK_CALL_LOG_RECONCILE,
+            ExistingPeriodicWorkPolicy.KEEP,
+            request
+        );
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        int recovered = reconciler.reconcile();
+        Log.d(TAG, "Call log sweep recovered " + recovered + " missed calls");
+        return Result.success();
+    }
+}
@@ -0,0 +1,150 @@
+package com.demoody.missedcall.workers;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import androidx.work.Constraints;
+import androidx.work.ExistingPeriodicWorkPolicy;
+import androidx.work.ExistingWorkPolicy;
+import androidx.work.NetworkType;
+import androidx.work.OneTimeWorkRequest;
+import androidx.work.PeriodicWorkRequest;
+import androidx.work.WorkInfo;
+import androidx.work.WorkManager;
+
+import com.demoody.missedcall.MissedCallApplication;
+import com.demoody.missedcall.utils.SettingsRepository;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps a single unique WorkManager chain armed for the earliest PENDING
+ * scheduled_time in missed_calls, plus a periodic sweep as a safety net.
+ * Scheduling cost is the same whether one call or a thousand are queued.
+ *
+ * Methods that read the database must be called off the main thread.
+ */
+public final class DispatchScheduler {
+
+    private static final String TAG = "DispatchScheduler";
+
+    static final String WORK_DISPATCH = "missed_call_dispatch";
+    static final String WORK_SWEEP = "missed_call_dispatch_sweep";
+
+    // Marks runs of the WORK_DISPATCH chain; the sweep uses the same worker class
+    static final String TAG_DISPATCH_RUN = "missed_call_dispatch_run";
+
+    private static final long SWEEP_INTERVAL_MINUTES = 15;
+
+    private static final String PREF_NAME = "dispatch_state";
+    private static final String KEY_ARMED_TIME = "armed_time";
+
+    private DispatchScheduler() {}
+
+    /**
+     * Enqueues the periodic sweep that re-arms the chain if it was ever lost,
+     * e.g. after a worker failure or a force stop. UPDATE keeps the sweep's
+     * schedule but picks up a changed network policy.
+     */
+    public static void ensurePeriodicSweep(Context context) {
+        PeriodicWorkRequest sweepRequest = new PeriodicWorkRequest.Builder(
+                MessageSchedulerWorker.class, SWEEP_INTERVAL_MINUTES, TimeUnit.MINUTES)
+            .setConstraints(networkConstraints(context))
+            .build();
+
+        WorkManager.getInstance(context).enqueueUniquePeriodicWork(
+            WORK_SWEEP,
+            ExistingPeriodicWorkPolicy.UPDATE,
+            sweepRequest
+        );
+    }
+
+    /**
+     * Dispatch only runs with a network the metered policy allows, so runs
+     * never start offline just to time out.
+     */
+    private static Constraints networkConstraints(Context context) {
+        boolean unmeteredOnly = SettingsRepository.getInstance(context).get().requireUnmeteredNetwork;
+        return new Constraints.Builder()
+            .setRequiredNetworkType(unmeteredOnly ? NetworkType.UNMETERED : NetworkType.CONNECTED)
+            .build();
+    }
+
+    /**
+     * Arms the dispatch chain for the earliest PENDING call. Does nothing if
+     * the chain is already armed at or before that time.
+     */
+    public static void scheduleNext(Context context) {
+        scheduleNext(context, false, 0);
+    }
+
+    /**
+     * Called by the worker once a run has finished. A run of the dispatch
+     * chain appends the next run after itself rather than replacing itself;
+     * a sweep run re-arms like any other caller. {@code minDelayMillis}
+     * holds the next run back when the run stopped on a condition
+     * WorkManager's constraints cannot see.
+     */
+    static void rearmFromWorker(Context context, boolean dispatchRun, long minDelayMillis) {
+        scheduleNext(context, dispatchRun, minDelayMillis);
+    }
+
+    private static synchronized void scheduleNext(Context context, boolean dispatchRun, long minDelayMillis) {
+        Context appContext = context.getApplicationContext();
+        MissedCallApplication app = (MissedCallApplication) appContext;
+        SharedPreferences state = appContext.getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE);
+
+        Long nextTime = app.getDatabase().missedCallDao().getNextScheduledTime();
+        if (nextTime == null) {
+            state.edit().remove(KEY_ARMED_TIME).apply();
+            Log.d(TAG, "No pending calls, dispatch chain idle");
+            return;
+        }
+
+        WorkManager workManager = WorkManager.getInstance(appContext);
+        boolean running = false;
+        boolean waiting = false;
+
+        try {
+            List<WorkInfo> infos = workManager.getWorkInfosForUniqueWork(WORK_DISPATCH).get();
+            for (WorkInfo info : infos) {
+                if (info.getState() == WorkInfo.State.RUNNING) {
+                    running = true;
+                } else if (info.getState() == WorkInfo.State.ENQUEUED || info.getState() == WorkInfo.State.BLOCKED) {
+                    waiting = true;
+                }
+            }
+        } catch (Exception e) {
+            Log.w(TAG, "Could not read dispatch work state", e);
+        }
+
+        long armedTime = state.getLong(KEY_ARMED_TIME, 0);
+        if (waiting && armedTime > 0 && armedTime <= nextTime) {
+            // Already armed early enough; the run will pick this call up too
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        long delayMillis = Math.max(minDelayMillis, nextTime - now);
+
+        OneTimeWorkRequest workRequest = new OneTimeWorkRequest.Builder(MessageSchedulerWorker.class)
+            .setInitialDelay(delayMillis, TimeUnit.MILLISECONDS)
+            .setConstraints(networkConstraints(appContext))
+            .addTag(TAG_DISPATCH_RUN)
+            .build();
+
+        // Never replace a running worker mid-batch; queue behind it instead.
+        // Otherwise replace whatever is waiting, so the chain never grows
+        // (appended delays would add up behind a deferred run)
+        ExistingWorkPolicy policy = running || dispatchRun
+            ? ExistingWorkPolicy.APPEND_OR_REPLACE
+            : ExistingWorkPolicy.REPLACE;
+
+        workManager.enqueueUniqueWork(WORK_DISPATCH, policy, workRequest);
+        state.edit().putLong(KEY_ARMED_TIME, Math.max(nextTime, now + minDelayMillis)).apply();
+
+        Log.d(TAG, "Dispatch armed in " + (delayMillis / 1000) + " seconds");
+    }
+}
@@ -0,0 +1,196 @@
+package com.demoody.missedcall.workers;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.work.Constraints;
+import androidx.work.ExistingPeriodicWorkPolicy;
+import androidx.work.NetworkType;
+import androidx.work.PeriodicWorkRequest;
+import androidx.work.WorkManager;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+import com.demoody.missedcall.MissedCallApplication;
+import com.demoody.missedcall.db.AppDatabase;
+import com.demoody.missedcall.db.MissedCallDao;
+import com.demoody.missedcall.db.SyncTarget;
+import com.demoody.missedcall.network.ApiClient;
+import com.demoody.missedcall.network.ApiService;
+import com.demoody.missedcall.network.responses.ApiResponse;
+import com.demoody.missedcall.network.responses.LogsResponse;
+import com.demoody.missedcall.utils.DeviceUtils;
+
+import retrofit2.Response;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Brings server-side delivery results (SENT with the provider's message ID,
+ * FAILED, BLOCKED) back into missed_calls. Only rows changed since the
+ * stored cursor are fetched, and each page is applied in one transaction
+ * before the cursor moves past it.
+ */
+public class LogSyncWorker extends Worker {
+
+    private static final String TAG = "LogSyncWorker";
+
+    private static final String WORK_LOG_SYNC = "log_sync";
+    private static final long SYNC_INTERVAL_HOURS = 3;
+
+    private static final String PREF_NAME = "log_sync_state";
+    private static final String KEY_CURSOR = "cursor";
+
+    // The backend caps pages at 100 rows
+    static final int PAGE_SIZE = 100;
+    private static final int MAX_PAGES_PER_RUN = 50;
+
+    private final ApiService apiService;
+    private final AppDatabase database;
+    private final MissedCallDao missedCallDao;
+    private final SharedPreferences state;
+
+    public LogSyncWorker(@NonNull Context context, @NonNull WorkerParameters workerParams) {
+        super(context, workerParams);
+
+        MissedCallApplication app = (MissedCallApplication) context.getApplicationContext();
+        this.apiService = ApiClient.getInstance(context).getApiService();
+        this.database = app.getDatabase();
+        this.missedCallDao = database.missedCallDao();
+        this.state = context.getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE);
+    }
+
+    public static void schedule(Context context) {
+        Constraints constraints = new Constraints.Builder()
+            .setRequiredNetworkType(NetworkType.CONNECTED)
+            .build();
+
+        PeriodicWorkRequest request = new PeriodicWorkRequest.Builder(
+                LogSyncWorker.class, SYNC_INTERVAL_HOURS, TimeUnit.HOURS)
+            .setConstraints(constraints)
+            .build();
+
+        WorkManager.getInstance(context).enqueueUniquePeriodicWork(
+            WORK_LOG_SYNC,
+            ExistingPeriodicWorkPolicy.KEEP,
+            request
+        );
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        String deviceId = DeviceUtils.getDeviceId(getApplicationContext());
+        String cursor = state.getString(KEY_CURSOR, "");
+        int updated = 0;
+
+        try {
+            for (int page = 0; page < MAX_PAGES_PER_RUN && !isStopped(); page++) {
+                Response<ApiResponse<LogsResponse>> response =
+                    apiService.getLogChanges(deviceId, cursor, PAGE_SIZE).execute();
+
+                ApiResponse<LogsResponse> body = response.body();
+                if (!response.isSuccessful() || body == null || !body.success || body.data == null) {
+                    Log.w(TAG, "Log sync failed: HTTP " + response.code());
+                    return Result.retry();
+                }
+
+                LogsResponse changes = body.data;
+                if (changes.logs != null && !changes.logs.isEmpty()) {
+                    updated += apply(changes.logs);
+                }
+
+                if (changes.nextCursor != null) {
+                    cursor = changes.nextCursor;
+                    state.edit().putString(KEY_CURSOR, cursor).apply();
+                }
+
+                if (!changes.hasMore) {
+                    break;
+                }
+            }
+
+            Log.d(TAG, "Log sync updated " + updated + " calls");
+            return Result.success();
+
+        } catch (IOException e) {
+            Log.w(TAG, "Log sync failed", e);
+            return Result.retry();
+        }
+    }
+
+    private int apply(List<LogsResponse.CallLog> logs) {
+        List<String> keys = new ArrayList<>(logs.size());
+        for (LogsResponse.CallLog log : logs) {
+            if (log != null && log.idempotencyKey != null && !log.idempotencyKey.isEmpty()) {
+                keys.add(log.idempotencyKey);
+            }
+        }
+        if (keys.isEmpty()) {
+            return 0;
+        }
+
+        Map<String, SyncTarget> targets = new HashMap<>();
+        for (SyncTarget target : missedCallDao.findByIdempotencyKeys(keys)) {
+            targets.put(target.idempotencyKey, target);
+        }
+
+        long now = System.currentTimeMillis();
+        int[] updated = new int[1];
+
+        database.runInTransaction(() -> {
+            for (LogsResponse.CallLog log : logs) {
+                SyncTarget target = log != null ? targets.get(log.idempotencyKey) : null;
+                if (target != null && applyLog(target, log, now)) {
+                    updated[0]++;
+                }
+            }
+        });
+        return updated[0];
+    }
+
+    /**
+     * Moves the local row to the server's final state. PENDING on the
+     * server is not final and leaves the row alone.
+     */
+    private boolean applyLog(SyncTarget target, LogsResponse.CallLog log, long now) {
+        if ("SENT".equals(log.status)) {
+            if ("SENT".equals(target.status) && equal(target.providerMessageId, log.providerMessageId)) {
+                return false;
+            }
+            long sentAt = log.sentAtMillis != null ? log.sentAtMillis : now;
+            missedCallDao.updateStatusSent(target.id, "SENT", sentAt, log.providerMessageId);
+            return true;
+        }
+
+        if ("FAILED".equals(log.status)) {
+            if ("FAILED".equals(target.status)) {
+                return false;
+            }
+            missedCallDao.updateStatusFailed(target.id, "FAILED",
+                Math.max(target.attemptCount, log.attemptCount), log.errorMessage);
+            return true;
+        }
+
+        if ("BLOCKED".equals(log.status)) {
+            if ("SKIPPED".equals(target.status)) {
+                return false;
+            }
+            missedCallDao.updateStatusFailed(target.id, "SKIPPED", target.attemptCount, "Number is blocked");
+            return true;
+        }
+
+        return false;
+    }
+
+    private static boolean equal(String a, String b) {
+        return a == null ? b == null : a.equals(b);
+    }
+}
@@ -1,6 +1,7 @@
 package com.demoody.missedcall.workers;
 
 import android.content.Context;
+import android.text.format.DateFormat;
 import android.util.Log;
 
 import androidx.annotation.NonNull;
@@ -8,152 +9,379 @@ import androidx.work.Worker;
 import androidx.work.WorkerParameters;
 
 import com.demoody.missedcall.MissedCallApplication;
+import com.demoody.missedcall.db.AppDatabase;
+import com.demoody.missedcall.db.BlockedNumberDao;
+import com.demoody.missedcall.db.BlockedNumberEntity;
 import com.demoody.missedcall.db.MissedCallDao;
 import com.demoody.missedcall.db.MissedCallEntity;
 import com.demoody.missedcall.network.ApiClient;
 import com.demoody.missedcall.network.ApiService;
+import com.demoody.missedcall.network.CircuitBreaker;
+import com.demoody.missedcall.network.DeliveryPolicy;
+import com.demoody.missedcall.network.NetworkMonitor;
+import com.demoody.missedcall.network.TokenManager;
+import com.demoody.missedcall.network.requests.BatchMissedCallRequest;
 import com.demoody.missedcall.network.requests.MissedCallRequest;
 import com.demoody.missedcall.network.responses.ApiResponse;
+import com.demoody.missedcall.network.responses.BatchMissedCallResponse;
+import com.demoody.missedcall.utils.Blocklist;
+import com.demoody.missedcall.utils.ContactUtils;
 import com.demoody.missedcall.utils.DeviceUtils;
-import com.demoody.missedcall.utils.PreferenceManager;
+import com.demoody.missedcall.utils.MessageTemplate;
+import com.demoody.missedcall.utils.MessageTemplateCache;
+import com.demoody.missedcall.utils.Settings;
+import com.demoody.missedcall.utils.SettingsRepository;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
 
 import retrofit2.Call;
 import retrofit2.Response;
 
+/**
+ * Drains every due PENDING missed call and uploads them to the backend in
+ * batches, so a burst of calls costs one request instead of one per call.
+ * Runs as the single dispatch chain armed by {@link DispatchScheduler}.
+ */
 public class MessageSchedulerWorker extends Worker {
-    
+
     private static final String TAG = "MessageSchedulerWorker";
-    
-    public static final String KEY_PHONE_NUMBER = "phone_number";
-    public static final String KEY_CALL_TIME = "call_time";
-    public static final String KEY_MESSAGE_TEXT = "message_text";
-    
+
+    static final int BATCH_SIZE = 50;
+    static final int MAX_BATCHES_PER_RUN = 4;
+
+    // Calls deferred to the next opening are released one batch per interval
+    static final long OPENING_BATCH_INTERVAL_MS = 60 * 1000L;
+
+    // Stands in for {name} when the caller is not a saved contact
+    private static final String UNKNOWN_CALLER_NAME = "there";
+
+    // WorkManager's network constraint can pass while NetworkMonitor still sees
+    // no usable network (callbacks not delivered yet, captive portal); wait at
+    // least this long instead of re-running at once
+    private static final long NO_NETWORK_RETRY_DELAY_MS = TimeUnit.MINUTES.toMillis(1);
+
+    // The dispatch chain and the periodic sweep must never upload the same rows twice
+    private static final ReentrantLock DRAIN_LOCK = new ReentrantLock();
+
+    private AppDatabase database;
     private MissedCallDao missedCallDao;
+    private BlockedNumberDao blockedNumberDao;
+    private Blocklist blocklist;
     private ApiService apiService;
-    private PreferenceManager preferenceManager;
-    
+    private ApiService healthService;
+    private TokenManager tokenManager;
+    private SettingsRepository settingsRepository;
+    private MessageTemplateCache messageTemplates;
+    private DeliveryPolicy deliveryPolicy;
+    private CircuitBreaker circuitBreaker;
+    private NetworkMonitor networkMonitor;
+
     public MessageSchedulerWorker(@NonNull Context context, @NonNull WorkerParameters workerParams) {
         super(context, workerParams);
-        
+
         MissedCallApplication app = (MissedCallApplication) context.getApplicationContext();
-        this.missedCallDao = app.getDatabase().missedCallDao();
-        this.apiService = ApiClient.getInstance(context).getApiService();
-        this.preferenceManager = new PreferenceManager(context);
+        this.database = app.getDatabase();
+        this.missedCallDao = database.missedCallDao();
+        this.blockedNumberDao = database.blockedNumberDao();
+        this.blocklist = app.getBlocklist();
+        ApiClient apiClient = ApiClient.getInstance(context);
+        this.apiService = apiClient.getApiService();
+        this.healthService = apiClient.getHealthService();
+        this.tokenManager = apiClient.getTokenManager();
+        this.settingsRepository = SettingsRepository.getInstance(context);
+        this.messageTemplates = app.getMessageTemplates();
+        this.deliveryPolicy = app.getDeliveryPolicy();
+        this.circuitBreaker = app.getCircuitBreaker();
+        this.networkMonitor = app.getNetworkMonitor();
     }
-    
+
     @NonNull
     @Override
     public Result doWork() {
-        String phoneNumber = getInputData().getString(KEY_PHONE_NUMBER);
-        long callTime = getInputData().getLong(KEY_CALL_TIME, 0);
-        String messageText = getInputData().getString(KEY_MESSAGE_TEXT);
-        
-        if (phoneNumber == null || callTime == 0 || messageText == null) {
-            Log.e(TAG, "Invalid input data for worker");
+        if (!DRAIN_LOCK.tryLock()) {
+            Log.d(TAG, "Another dispatch run is in progress");
+            return Result.success();
+        }
+
+        long rearmDelayMillis = 0;
+
+        try {
+            for (int batch = 0; batch < MAX_BATCHES_PER_RUN; batch++) {
+                List<MissedCallEntity> pendingCalls = missedCallDao.getPendingCalls(System.currentTimeMillis(), BATCH_SIZE);
+                if (pendingCalls.isEmpty()) {
+                    break;
+                }
+
+                Log.d(TAG, "Processing batch of " + pendingCalls.size() + " pending calls");
+
+                Settings settings = settingsRepository.get();
+
+                // Check if auto-responder is still enabled
+                if (!settings.autoResponderEnabled) {
+                    Log.d(TAG, "Auto-responder disabled, skipping messages");
+                    markSkipped(pendingCalls, "Auto-responder disabled");
+                    continue;
+                }
+
+                // Outside business hours, hold calls until the next opening
+                long now = System.currentTimeMillis();
+                if (settings.businessHoursEnabled && !settings.businessCalendar.isOpen(now)) {
+                    deferToNextOpening(pendingCalls, settings.businessCalendar.nextOpen(now));
+                    continue;
+                }
+
+                // The link dropped since WorkManager started us; re-arm after a short
+                // wait instead of spending attempts (a restored network releases sooner)
+                if (!networkMonitor.canDispatch()) {
+                    Log.d(TAG, "No usable network, waiting for connectivity");
+                    rearmDelayMillis = NO_NETWORK_RETRY_DELAY_MS;
+                    break;
+                }
+
+                // While the backend is down, leave everything PENDING until the breaker's next probe
+                if (!circuitBreaker.allowRequest(now)
+                        || (circuitBreaker.getState() == CircuitBreaker.State.HALF_OPEN && !probeBackend())) {
+                    holdForBreaker();
+                    break;
+                }
+
+                // Failed rows are rescheduled into the future, so the next batch
+                // never picks them straight back up
+                if (!sendBatchViaBackend(pendingCalls, settings) || pendingCalls.size() < BATCH_SIZE) {
+                    break;
+                }
+            }
+
+            // Retries are timed by our own backoff, not WorkManager's, so always re-arm
+            DispatchScheduler.rearmFromWorker(getApplicationContext(),
+                getTags().contains(DispatchScheduler.TAG_DISPATCH_RUN), rearmDelayMillis);
+            return Result.success();
+
+        } catch (Exception e) {
+            Log.e(TAG, "Error processing scheduled messages", e);
             return Result.failure();
+        } finally {
+            DRAIN_LOCK.unlock();
+        }
+    }
+
+    /**
+     * Uploads one batch and records each item's outcome. Per-item rejections
+     * spend an attempt and back off; if the backend itself is unreachable no
+     * attempts are spent and the breaker is told instead.
+     *
+     * @return false if the backend was unreachable and draining should stop
+     */
+    private boolean sendBatchViaBackend(List<MissedCallEntity> calls, Settings settings) {
+        String deviceId = DeviceUtils.getDeviceId(getApplicationContext());
+        int delayMinutes = settings.delayMinutes;
+
+        java.text.DateFormat timeFormat = DateFormat.getTimeFormat(getApplicationContext());
+        Map<Long, String> contactNames = new HashMap<>();
+
+        List<MissedCallRequest> items = new ArrayList<>(calls.size());
+        for (MissedCallEntity call : calls) {
+            // Rows keep the template they were queued with; it is compiled once per settings version
+            MessageTemplate template = messageTemplates.get(call.settingsVersion, call.messageText, settings);
+            String name = template.usesName() ? lookupContactName(contactNames, call) : null;
+            String time = template.usesTime() ? timeFormat.format(new Date(call.callTime)) : null;
+
+            items.add(new MissedCallRequest(deviceId, call.phoneNumber, call.callTime, template.render(name, time),
+                delayMinutes, call.idempotencyKey));
         }
-        
-        Log.d(TAG, "Processing scheduled message for: " + phoneNumber);
-        
+
+        List<BatchMissedCallResponse.ItemResult> results = null;
+        String batchError = null;
+        boolean backendUnavailable = false;
+
         try {
-            // Find the missed call record
-            MissedCallEntity missedCall = missedCallDao.findByPhoneAndTime(phoneNumber, callTime);
-            if (missedCall == null) {
-                Log.w(TAG, "Missed call record not found");
-                return Result.failure();
+            // First run after install: register so the batch carries a token
+            tokenManager.ensureToken();
+
+            Call<ApiResponse<BatchMissedCallResponse>> call =
+                apiService.logMissedCallsBatch(new BatchMissedCallRequest(deviceId, items));
+            Response<ApiResponse<BatchMissedCallResponse>> response = call.execute();
+
+            if (response.isSuccessful() && response.body() != null) {
+                ApiResponse<BatchMissedCallResponse> apiResponse = response.body();
+                if (apiResponse.success && apiResponse.data != null && apiResponse.data.results != null) {
+                    Log.d(TAG, "Backend batch call successful");
+                    results = apiResponse.data.results;
+                } else {
+                    batchError = apiResponse.error != null ? apiResponse.error : "Empty batch response";
+                    Log.e(TAG, "Backend API error: " + batchError);
+                }
+            } else {
+                batchError = "HTTP " + response.code();
+                backendUnavailable = isUnavailableStatus(response.code());
+                Log.e(TAG, "Backend API call failed: " + response.code());
             }
-            
-            // Check if already processed
-            if (!"PENDING".equals(missedCall.status)) {
-                Log.d(TAG, "Call already processed with status: " + missedCall.status);
-                return Result.success();
+        } catch (IOException e) {
+            batchError = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+            backendUnavailable = true;
+            Log.e(TAG, "Exception during backend API call", e);
+        } catch (RuntimeException e) {
+            // e.g. a malformed response body: the backend answered, so count it per item
+            batchError = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+            Log.e(TAG, "Unreadable backend response", e);
+        }
+
+        long now = System.currentTimeMillis();
+
+        if (backendUnavailable) {
+            circuitBreaker.recordFailure(now);
+            if (circuitBreaker.getState() == CircuitBreaker.State.OPEN) {
+                holdForBreaker();
+            } else {
+                long retryAt = now + deliveryPolicy.backoffDelay(circuitBreaker.getConsecutiveFailures());
+                for (MissedCallEntity missedCall : calls) {
+                    missedCallDao.scheduleRetry(missedCall.id, retryAt, missedCall.attemptCount, batchError);
+                }
             }
-            
-            // Check if auto-responder is still enabled
-            if (!preferenceManager.isAutoResponderEnabled()) {
-                Log.d(TAG, "Auto-responder disabled, skipping message");
-                missedCall.status = "SKIPPED";
-                missedCall.errorMessage = "Auto-responder disabled";
-                missedCallDao.update(missedCall);
-                return Result.success();
+            return false;
+        }
+        circuitBreaker.recordSuccess();
+
+        BatchMissedCallResponse.ItemResult[] byIndex = new BatchMissedCallResponse.ItemResult[calls.size()];
+        if (results != null) {
+            for (BatchMissedCallResponse.ItemResult result : results) {
+                if (result != null && result.index >= 0 && result.index < byIndex.length) {
+                    byIndex[result.index] = result;
+                }
             }
-            
-            // Check business hours if enabled
-            if (preferenceManager.isBusinessHoursEnabled() && !isWithinBusinessHours()) {
-                Log.d(TAG, "Outside business hours, skipping message");
-                missedCall.status = "SKIPPED";
-                missedCall.errorMessage = "Outside business hours";
-                missedCallDao.update(missedCall);
-                return Result.success();
+        }
+
+        // Rows are the outbox: every outcome of the batch commits together, and a
+        // crash before the commit just replays the batch under the same keys
+        String itemFallbackError = batchError;
+        List<BlockedNumberEntity> newlyBlocked = new ArrayList<>();
+        database.runInTransaction(() -> recordOutcomes(calls, byIndex, itemFallbackError, now, newlyBlocked));
+
+        // Remember numbers the backend refused so their next call is dropped locally
+        if (!newlyBlocked.isEmpty()) {
+            List<Long> blockedKeys = new ArrayList<>(newlyBlocked.size());
+            for (BlockedNumberEntity blocked : newlyBlocked) {
+                blockedKeys.add(blocked.phoneKey);
             }
-            
-            // Send message via backend
-            boolean success = sendMessageViaBackend(phoneNumber, callTime, messageText);
-            
-            if (success) {
+            blocklist.apply(blockedKeys, Collections.<Long>emptyList());
+        }
+        return true;
+    }
+
+    private void recordOutcomes(List<MissedCallEntity> calls, BatchMissedCallResponse.ItemResult[] byIndex,
+                                String batchError, long now, List<BlockedNumberEntity> newlyBlocked) {
+        for (int i = 0; i < calls.size(); i++) {
+            MissedCallEntity missedCall = calls.get(i);
+            BatchMissedCallResponse.ItemResult result = byIndex[i];
+
+            if (result != null && result.success && "BLOCKED".equals(result.status)) {
+                missedCall.status = "SKIPPED";
+                missedCallDao.updateStatusFailed(missedCall.id, missedCall.status, missedCall.attemptCount, "Number is blocked");
+                newlyBlocked.add(new BlockedNumberEntity(missedCall.phoneKey, missedCall.phoneNumber, now));
+            } else if (result != null && result.success) {
                 missedCall.status = "SENT";
-                missedCall.sentAt = System.currentTimeMillis();
-                missedCallDao.update(missedCall);
-                Log.d(TAG, "Message sent successfully for: " + phoneNumber);
-                return Result.success();
+                missedCallDao.updateStatusSent(missedCall.id, missedCall.status, now, null);
+            } else if (result != null && result.code != null && isUnavailableStatus(result.code)) {
+                // Rate limited or a server error: the item itself was fine, so no attempt
+                // is spent, and the breaker only tracks whole-request failures
+                missedCall.scheduledTime = now + deliveryPolicy.backoffDelay(missedCall.attemptCount + 1);
+                Log.w(TAG, "Backend deferred " + missedCall.phoneNumber + " (" + result.code + "), will retry");
+                missedCallDao.scheduleRetry(missedCall.id, missedCall.scheduledTime, missedCall.attemptCount, result.error);
             } else {
+                String error = result != null && result.error != null ? result.error
+                    : batchError != null ? batchError : "Missing result for call";
                 missedCall.attemptCount++;
-                if (missedCall.attemptCount >= 3) {
+
+                if (missedCall.attemptCount >= deliveryPolicy.getMaxAttempts()) {
                     missedCall.status = "FAILED";
-                    missedCall.errorMessage = "Max retry attempts reached";
-                    missedCallDao.update(missedCall);
-                    Log.e(TAG, "Max retry attempts reached for: " + phoneNumber);
-                    return Result.failure();
+                    Log.e(TAG, "Max retry attempts reached for: " + missedCall.phoneNumber);
+                    missedCallDao.updateStatusFailed(missedCall.id, missedCall.status, missedCall.attemptCount, "Max retry attempts reached: " + error);
                 } else {
-                    missedCallDao.update(missedCall);
-                    Log.w(TAG, "Message send failed, will retry. Attempt: " + missedCall.attemptCount);
-                    return Result.retry();
+                    missedCall.scheduledTime = now + deliveryPolicy.backoffDelay(missedCall.attemptCount);
+                    Log.w(TAG, "Message send failed for " + missedCall.phoneNumber + ", will retry. Attempt: " + missedCall.attemptCount);
+                    missedCallDao.scheduleRetry(missedCall.id, missedCall.scheduledTime, missedCall.attemptCount, error);
                 }
             }
-            
-        } catch (Exception e) {
-            Log.e(TAG, "Error processing scheduled message", e);
-            return Result.failure();
+        }
+
+        if (!newlyBlocked.isEmpty()) {
+            blockedNumberDao.upsertAll(newlyBlocked);
         }
     }
-    
-    private boolean sendMessageViaBackend(String phoneNumber, long callTime, String messageText) {
+
+    /**
+     * Checks the health endpoint before a half-open breaker lets a batch through.
+     */
+    private boolean probeBackend() {
         try {
-            String deviceId = DeviceUtils.getDeviceId(getApplicationContext());
-            
-            MissedCallRequest request = new MissedCallRequest();
-            request.deviceId = deviceId;
-            request.phoneNumber = phoneNumber;
-            request.callTime = callTime;
-            request.messageText = messageText;
-            request.delayMinutes = preferenceManager.getDelayMinutes();
-            
-            Call<ApiResponse<Object>> call = apiService.logMissedCall(request);
-            Response<ApiResponse<Object>> response = call.execute();
-            
-            if (response.isSuccessful() && response.body() != null) {
-                ApiResponse<Object> apiResponse = response.body();
-                if (apiResponse.success) {
-                    Log.d(TAG, "Backend API call successful");
-                    return true;
-                } else {
-                    Log.e(TAG, "Backend API error: " + apiResponse.error);
-                    return false;
-                }
-            } else {
-                Log.e(TAG, "Backend API call failed: " + response.code());
-                return false;
+            Response<ApiResponse<Object>> response = healthService.healthCheck().execute();
+            if (response.isSuccessful() && response.body() != null && response.body().success) {
+                circuitBreaker.recordSuccess();
+                return true;
             }
-            
-        } catch (Exception e) {
-            Log.e(TAG, "Exception during backend API call", e);
-            return false;
+        } catch (IOException e) {
+            Log.w(TAG, "Health probe failed", e);
+        }
+        circuitBreaker.recordFailure(System.currentTimeMillis());
+        return false;
+    }
+
+    private void holdForBreaker() {
+        int held = missedCallDao.holdPendingUntil(circuitBreaker.getRetryAt());
+        Log.w(TAG, "Backend unavailable, holding " + held + " pending calls");
+    }
+
+    private static boolean isUnavailableStatus(int code) {
+        return code >= 500 || code == 408 || code == 429;
+    }
+
+    /**
+     * Reschedules calls to the next opening in one transaction. Calls
+     * already waiting for that opening keep their place, and the backlog is
+     * spread one batch per {@link #OPENING_BATCH_INTERVAL_MS} so it does not
+     * all go out the moment the business opens.
+     */
+    private void deferToNextOpening(List<MissedCallEntity> calls, long openTime) {
+        if (openTime < 0) {
+            Log.d(TAG, "No business hours configured, skipping messages");
+            markSkipped(calls, "Outside business hours");
+            return;
+        }
+
+        int queued = missedCallDao.countPendingFrom(openTime);
+        for (int i = 0; i < calls.size(); i++) {
+            MissedCallEntity missedCall = calls.get(i);
+            missedCall.scheduledTime = openTime + ((queued + i) / BATCH_SIZE) * OPENING_BATCH_INTERVAL_MS;
+        }
+        missedCallDao.updateStatusRetryAll(calls);
+
+        Log.d(TAG, "Outside business hours, deferred " + calls.size() + " calls to " + openTime);
+    }
+
+    private String lookupContactName(Map<Long, String> contactNames, MissedCallEntity call) {
+        String name = contactNames.get(call.phoneKey);
+        if (name == null) {
+            name = ContactUtils.lookupDisplayName(getApplicationContext(), call.phoneNumber);
+            if (name == null) {
+                name = UNKNOWN_CALLER_NAME;
+            }
+            contactNames.put(call.phoneKey, name);
         }
+        return name;
     }
-    
-    private boolean isWithinBusinessHours() {
-        // Simple business hours check - can be enhanced
-        int currentHour = java.util.Calendar.getInstance().get(java.util.Calendar.HOUR_OF_DAY);
-        return currentHour >= 9 && currentHour <= 18; // 9 AM to 6 PM
+
+    private void markSkipped(List<MissedCallEntity> calls, String reason) {
+        for (MissedCallEntity missedCall : calls) {
+            missedCall.status = "SKIPPED";
+            missedCallDao.updateStatusFailed(missedCall.id, missedCall.status, missedCall.attemptCount, reason);
+        }
     }
-}
\ No newline at end of file
+}
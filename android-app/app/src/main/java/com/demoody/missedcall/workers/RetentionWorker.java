@@ -0,0 +1,147 @@
+package com.demoody.missedcall.workers;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.work.Constraints;
+import androidx.work.ExistingPeriodicWorkPolicy;
+import androidx.work.PeriodicWorkRequest;
+import androidx.work.WorkManager;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+import com.demoody.missedcall.MissedCallApplication;
+import com.demoody.missedcall.db.AppDatabase;
+import com.demoody.missedcall.db.MissedCallDao;
+import com.demoody.missedcall.utils.Settings;
+import com.demoody.missedcall.utils.SettingsRepository;
+
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Daily job that keeps missed_calls bounded by age and row count. Rows are
+ * deleted in small chunks, each in its own short transaction, so the write
+ * lock is never held long enough to stall call ingestion.
+ */
+public class RetentionWorker extends Worker {
+
+    private static final String TAG = "RetentionWorker";
+
+    private static final String WORK_RETENTION = "missed_call_retention";
+
+    static final int CHUNK_SIZE = 500;
+    private static final long CHUNK_PAUSE_MS = 50;
+    private static final int VACUUM_PAGES_PER_RUN = 2000;
+
+    private final AppDatabase database;
+    private final SettingsRepository settingsRepository;
+
+    public RetentionWorker(@NonNull Context context, @NonNull WorkerParameters workerParams) {
+        super(context, workerParams);
+
+        MissedCallApplication app = (MissedCallApplication) context.getApplicationContext();
+        this.database = app.getDatabase();
+        this.settingsRepository = SettingsRepository.getInstance(context);
+    }
+
+    public static void schedule(Context context) {
+        Constraints constraints = new Constraints.Builder()
+            .setRequiresBatteryNotLow(true)
+            .build();
+
+        PeriodicWorkRequest request = new PeriodicWorkRequest.Builder(RetentionWorker.class, 1, TimeUnit.DAYS)
+            .setConstraints(constraints)
+            .build();
+
+        WorkManager.getInstance(context).enqueueUniquePeriodicWork(
+            WORK_RETENTION,
+            ExistingPeriodicWorkPolicy.KEEP,
+            request
+        );
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        try {
+            MissedCallDao missedCallDao = database.missedCallDao();
+            Settings settings = settingsRepository.get();
+            long now = System.currentTimeMillis();
+
+            long cutoffTime = now - TimeUnit.DAYS.toMillis(settings.retentionDays);
+            Long rowCapTime = missedCallDao.getCallTimeBeyondLimit(settings.retentionMaxRows);
+            if (rowCapTime != null && rowCapTime > cutoffTime) {
+                cutoffTime = rowCapTime;
+            }
+
+            boolean summarize = settings.retentionSummariesEnabled;
+            long utcOffset = TimeZone.getDefault().getOffset(now);
+
+            int totalDeleted = 0;
+            int deleted;
+            do {
+                if (isStopped()) {
+                    Log.d(TAG, "Stopped after deleting " + totalDeleted + " rows");
+                    return Result.retry();
+                }
+
+                deleted = missedCallDao.purgeExpiredChunk(cutoffTime, CHUNK_SIZE, summarize, utcOffset);
+                totalDeleted += deleted;
+
+                if (deleted == CHUNK_SIZE) {
+                    // Let waiting writers in between chunks
+                    Thread.sleep(CHUNK_PAUSE_MS);
+                }
+            } while (deleted == CHUNK_SIZE);
+
+            Log.d(TAG, "Retention removed " + totalDeleted + " rows older than " + cutoffTime);
+
+            if (totalDeleted > 0) {
+                reclaimSpace();
+            }
+            return Result.success();
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Result.retry();
+        } catch (Exception e) {
+            Log.e(TAG, "Retention run failed", e);
+            return Result.retry();
+        }
+    }
+
+    /**
+     * Returns free pages to the file system a bounded amount at a time. A
+     * database created before incremental auto-vacuum is converted by
+     * {@link VacuumWorker} while the device is idle and charging, never here.
+     */
+    private void reclaimSpace() {
+        SupportSQLiteDatabase db = database.getOpenHelper().getWritableDatabase();
+
+        try {
+            if (VacuumWorker.getAutoVacuumMode(db) != VacuumWorker.AUTO_VACUUM_INCREMENTAL) {
+                VacuumWorker.schedule(getApplicationContext());
+                return;
+            }
+
+            queryInt(db, "PRAGMA incremental_vacuum(" + VACUUM_PAGES_PER_RUN + ")");
+        } catch (Exception e) {
+            Log.w(TAG, "Vacuum failed", e);
+        }
+    }
+
+    private static int queryInt(SupportSQLiteDatabase db, String sql) {
+        try (Cursor cursor = db.query(sql)) {
+            // getCount() steps the whole statement, which is what makes
+            // incremental_vacuum actually free its pages
+            if (cursor.getCount() > 0 && cursor.moveToFirst()) {
+                return cursor.getInt(0);
+            }
+            return 0;
+        }
+    }
+}
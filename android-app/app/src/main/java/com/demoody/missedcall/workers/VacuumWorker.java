@@ -0,0 +1,87 @@
+package com.demoody.missedcall.workers;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.os.Build;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.work.Constraints;
+import androidx.work.ExistingWorkPolicy;
+import androidx.work.OneTimeWorkRequest;
+import androidx.work.WorkManager;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+import com.demoody.missedcall.MissedCallApplication;
+import com.demoody.missedcall.db.AppDatabase;
+
+/**
+ * One-off conversion of a database created before incremental auto-vacuum
+ * was enabled. This needs a full VACUUM, which rewrites the file under an
+ * exclusive lock, so it only runs while the device is idle and charging.
+ */
+public class VacuumWorker extends Worker {
+
+    private static final String TAG = "VacuumWorker";
+
+    private static final String WORK_VACUUM = "missed_call_auto_vacuum";
+
+    // PRAGMA auto_vacuum values
+    static final int AUTO_VACUUM_INCREMENTAL = 2;
+
+    private final AppDatabase database;
+
+    public VacuumWorker(@NonNull Context context, @NonNull WorkerParameters workerParams) {
+        super(context, workerParams);
+
+        MissedCallApplication app = (MissedCallApplication) context.getApplicationContext();
+        this.database = app.getDatabase();
+    }
+
+    public static void schedule(Context context) {
+        Constraints.Builder constraints = new Constraints.Builder()
+            .setRequiresCharging(true);
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
+            constraints.setRequiresDeviceIdle(true);
+        }
+
+        OneTimeWorkRequest request = new OneTimeWorkRequest.Builder(VacuumWorker.class)
+            .setConstraints(constraints.build())
+            .build();
+
+        WorkManager.getInstance(context).enqueueUniqueWork(
+            WORK_VACUUM,
+            ExistingWorkPolicy.KEEP,
+            request
+        );
+    }
+
+    static int getAutoVacuumMode(SupportSQLiteDatabase db) {
+        try (Cursor cursor = db.query("PRAGMA auto_vacuum")) {
+            return cursor.moveToFirst() ? cursor.getInt(0) : 0;
+        }
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        SupportSQLiteDatabase db = database.getOpenHelper().getWritableDatabase();
+
+        try {
+            if (getAutoVacuumMode(db) == AUTO_VACUUM_INCREMENTAL) {
+                return Result.success();
+            }
+
+            Log.d(TAG, "Enabling incremental auto-vacuum");
+            db.execSQL("PRAGMA auto_vacuum = INCREMENTAL");
+            db.execSQL("VACUUM");
+            return Result.success();
+
+        } catch (Exception e) {
+            Log.w(TAG, "Vacuum failed", e);
+            return Result.retry();
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.demoody.missedcall.network;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CircuitBreakerTest {
+
+    private static final long NOW = 1_000_000L;
+
+    // A one second base and cap make every open period exactly one second
+    private static CircuitBreaker fixedBackoffBreaker() {
+        return new CircuitBreaker(new DeliveryPolicy.Builder()
+            .setBaseDelay(1, TimeUnit.SECONDS)
+            .setMaxDelay(1, TimeUnit.SECONDS)
+            .setBreakerFailureThreshold(3)
+            .build());
+    }
+
+    private static void open(CircuitBreaker breaker, long now) {
+        for (int i = 0; i < 3; i++) {
+            breaker.recordFailure(now);
+        }
+    }
+
+    @Test
+    public void startsClosed() {
+        CircuitBreaker breaker = fixedBackoffBreaker();
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertTrue(breaker.allowRequest(NOW));
+    }
+
+    @Test
+    public void opensAtFailureThreshold() {
+        CircuitBreaker breaker = fixedBackoffBreaker();
+
+        breaker.recordFailure(NOW);
+        breaker.recordFailure(NOW);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+
+        breaker.recordFailure(NOW);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertEquals(3, breaker.getConsecutiveFailures());
+        assertEquals(NOW + 1_000L, breaker.getRetryAt());
+        assertFalse(breaker.allowRequest(NOW + 999L));
+    }
+
+    @Test
+    public void movesToHalfOpenOnceBackoffPasses() {
+        CircuitBreaker breaker = fixedBackoffBreaker();
+        open(breaker, NOW);
+
+        assertTrue(breaker.allowRequest(NOW + 1_000L));
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        // Further callers are let through while the probe is outstanding
+        assertTrue(breaker.allowRequest(NOW + 1_000L));
+    }
+
+    @Test
+    public void failedProbeReopensImmediately() {
+        CircuitBreaker breaker = fixedBackoffBreaker();
+        open(breaker, NOW);
+        breaker.allowRequest(NOW + 1_000L);
+
+        breaker.recordFailure(NOW + 1_000L);
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertEquals(NOW + 2_000L, breaker.getRetryAt());
+        assertFalse(breaker.allowRequest(NOW + 1_500L));
+    }
+
+    @Test
+    public void successfulProbeCloses() {
+        CircuitBreaker breaker = fixedBackoffBreaker();
+        open(breaker, NOW);
+        breaker.allowRequest(NOW + 1_000L);
+
+        breaker.recordSuccess();
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertEquals(0, breaker.getConsecutiveFailures());
+        // A single failure after closing does not reopen it
+        breaker.recordFailure(NOW + 2_000L);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    public void failedProbesGrowTheOpenPeriod() {
+        CircuitBreaker breaker = new CircuitBreaker(new DeliveryPolicy.Builder()
+            .setBaseDelay(10, TimeUnit.SECONDS)
+            .setMaxDelay(1, TimeUnit.HOURS)
+            .setBreakerFailureThreshold(1)
+            .build());
+
+        long now = NOW;
+        for (int openCount = 1; openCount <= 4; openCount++) {
+            breaker.recordFailure(now);
+            long wait = breaker.getRetryAt() - now;
+            long ceiling = 10_000L << (openCount - 1);
+            assertTrue("open " + openCount + " waited " + wait, wait >= 1_000L && wait <= ceiling);
+
+            now = breaker.getRetryAt();
+            assertTrue(breaker.allowRequest(now));
+        }
+    }
+
+    @Test
+    public void networkRestoredLetsNextCallProbe() {
+        CircuitBreaker breaker = fixedBackoffBreaker();
+        open(breaker, NOW);
+
+        assertEquals(NOW + 1_000L, breaker.onNetworkRestored(NOW + 10L));
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertTrue(breaker.allowRequest(NOW + 10L));
+    }
+
+    @Test
+    public void networkRestoredWhileClosedIsANoOp() {
+        CircuitBreaker breaker = fixedBackoffBreaker();
+
+        assertEquals(0L, breaker.onNetworkRestored(NOW));
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+}
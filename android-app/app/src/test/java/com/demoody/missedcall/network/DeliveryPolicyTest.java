@@ -0,0 +1,74 @@
+package com.demoody.missedcall.network;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class DeliveryPolicyTest {
+
+    private static final int SAMPLES = 500;
+
+    private static void assertDelaysWithin(DeliveryPolicy policy, int attempt, long min, long max) {
+        for (int i = 0; i < SAMPLES; i++) {
+            long delay = policy.backoffDelay(attempt);
+            assertTrue("attempt " + attempt + " gave " + delay, delay >= min && delay <= max);
+        }
+    }
+
+    @Test
+    public void defaults() {
+        DeliveryPolicy policy = new DeliveryPolicy.Builder().build();
+
+        assertEquals(5, policy.getMaxAttempts());
+        assertEquals(3, policy.getBreakerFailureThreshold());
+    }
+
+    @Test
+    public void ceilingDoublesPerAttempt() {
+        DeliveryPolicy policy = new DeliveryPolicy.Builder()
+            .setBaseDelay(10, TimeUnit.SECONDS)
+            .setMaxDelay(1, TimeUnit.HOURS)
+            .build();
+
+        assertDelaysWithin(policy, 1, 1_000L, 10_000L);
+        assertDelaysWithin(policy, 2, 1_000L, 20_000L);
+        assertDelaysWithin(policy, 4, 1_000L, 80_000L);
+    }
+
+    @Test
+    public void ceilingIsCappedAtMaxDelay() {
+        DeliveryPolicy policy = new DeliveryPolicy.Builder()
+            .setBaseDelay(30, TimeUnit.SECONDS)
+            .setMaxDelay(5, TimeUnit.MINUTES)
+            .build();
+
+        assertDelaysWithin(policy, 20, 1_000L, TimeUnit.MINUTES.toMillis(5));
+        // Shifts past 62 bits would overflow without the exponent clamp
+        assertDelaysWithin(policy, Integer.MAX_VALUE, 1_000L, TimeUnit.MINUTES.toMillis(5));
+    }
+
+    @Test
+    public void delayIsNeverBelowOneSecond() {
+        DeliveryPolicy policy = new DeliveryPolicy.Builder()
+            .setBaseDelay(1, TimeUnit.MILLISECONDS)
+            .setMaxDelay(1, TimeUnit.MILLISECONDS)
+            .build();
+
+        assertDelaysWithin(policy, 1, 1_000L, 1_000L);
+        assertDelaysWithin(policy, 0, 1_000L, 1_000L);
+    }
+
+    @Test
+    public void builderClampsToAtLeastOne() {
+        DeliveryPolicy policy = new DeliveryPolicy.Builder()
+            .setMaxAttempts(0)
+            .setBreakerFailureThreshold(-3)
+            .build();
+
+        assertEquals(1, policy.getMaxAttempts());
+        assertEquals(1, policy.getBreakerFailureThreshold());
+    }
+}
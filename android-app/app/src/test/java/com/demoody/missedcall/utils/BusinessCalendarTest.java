@@ -0,0 +1,186 @@
+package com.demoody.missedcall.utils;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.GregorianCalendar;
+import java.util.TimeZone;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class BusinessCalendarTest {
+
+    private static final TimeZone UTC = TimeZone.getTimeZone("UTC");
+    private static final TimeZone NEW_YORK = TimeZone.getTimeZone("America/New_York");
+
+    // Bit 0 = Sunday
+    private static final int WEEKDAYS = 0b0111110;
+    private static final int EVERY_DAY = 0b1111111;
+
+    private static long at(TimeZone zone, int year, int month, int day, int hour, int minute) {
+        GregorianCalendar calendar = new GregorianCalendar(zone);
+        calendar.clear();
+        calendar.set(year, month - 1, day, hour, minute);
+        return calendar.getTimeInMillis();
+    }
+
+    private static long utc(int year, int month, int day, int hour, int minute) {
+        return at(UTC, year, month, day, hour, minute);
+    }
+
+    @Test
+    public void openTimeIsReturnedUnchanged() {
+        BusinessCalendar calendar = BusinessCalendar.weekly(UTC, WEEKDAYS, 9, 17, null);
+        // 2024-01-10 is a Wednesday
+        long noon = utc(2024, 1, 10, 12, 34) + 5_000L;
+
+        assertTrue(calendar.isOpen(noon));
+        assertEquals(noon, calendar.nextOpen(noon));
+    }
+
+    @Test
+    public void beforeOpeningWaitsUntilSameDay() {
+        BusinessCalendar calendar = BusinessCalendar.weekly(UTC, WEEKDAYS, 9, 17, null);
+
+        assertEquals(utc(2024, 1, 10, 9, 0), calendar.nextOpen(utc(2024, 1, 10, 8, 15)));
+    }
+
+    @Test
+    public void closingTimeIsExclusiveAndWrapsPastMidnight() {
+        BusinessCalendar calendar = BusinessCalendar.weekly(UTC, WEEKDAYS, 9, 17, null);
+
+        assertTrue(calendar.isOpen(utc(2024, 1, 10, 16, 59)));
+        assertFalse(calendar.isOpen(utc(2024, 1, 10, 17, 0)));
+        assertEquals(utc(2024, 1, 11, 9, 0), calendar.nextOpen(utc(2024, 1, 10, 17, 0)));
+        assertEquals(utc(2024, 1, 11, 9, 0), calendar.nextOpen(utc(2024, 1, 10, 23, 59)));
+    }
+
+    @Test
+    public void weekendSkipsToMonday() {
+        BusinessCalendar calendar = BusinessCalendar.weekly(UTC, WEEKDAYS, 9, 17, null);
+
+        assertEquals(utc(2024, 1, 15, 9, 0), calendar.nextOpen(utc(2024, 1, 12, 18, 0)));
+        assertEquals(utc(2024, 1, 15, 9, 0), calendar.nextOpen(utc(2024, 1, 14, 23, 0)));
+    }
+
+    @Test
+    public void saturdayWrapsIntoNextWeek() {
+        int sundayOnly = 1 << (Calendar.SUNDAY - Calendar.SUNDAY);
+        BusinessCalendar calendar = BusinessCalendar.weekly(UTC, sundayOnly, 10, 12, null);
+
+        // Saturday night is the end of the minute-of-week table
+        assertEquals(utc(2024, 1, 14, 10, 0), calendar.nextOpen(utc(2024, 1, 13, 23, 0)));
+        // Past Sunday's hours waits a whole week
+        assertEquals(utc(2024, 1, 21, 10, 0), calendar.nextOpen(utc(2024, 1, 14, 12, 0)));
+    }
+
+    @Test
+    public void overnightHoursRunPastMidnight() {
+        int fridayOnly = 1 << (Calendar.FRIDAY - Calendar.SUNDAY);
+        BusinessCalendar calendar = BusinessCalendar.weekly(UTC, fridayOnly, 22, 6, null);
+
+        assertTrue(calendar.isOpen(utc(2024, 1, 13, 5, 59)));
+        assertFalse(calendar.isOpen(utc(2024, 1, 13, 6, 0)));
+        assertEquals(utc(2024, 1, 19, 22, 0), calendar.nextOpen(utc(2024, 1, 13, 6, 0)));
+    }
+
+    @Test
+    public void overnightHoursWrapFromSaturdayIntoSunday() {
+        int saturdayOnly = 1 << (Calendar.SATURDAY - Calendar.SUNDAY);
+        BusinessCalendar calendar = BusinessCalendar.weekly(UTC, saturdayOnly, 22, 6, null);
+
+        assertTrue(calendar.isOpen(utc(2024, 1, 14, 3, 0)));
+        assertFalse(calendar.isOpen(utc(2024, 1, 14, 6, 0)));
+        assertEquals(utc(2024, 1, 13, 22, 0), calendar.nextOpen(utc(2024, 1, 13, 12, 0)));
+    }
+
+    @Test
+    public void equalHoursMeanOpenAllDay() {
+        BusinessCalendar calendar = BusinessCalendar.weekly(UTC, EVERY_DAY, 0, 0, null);
+
+        assertTrue(calendar.isOpen(utc(2024, 1, 10, 0, 0)));
+        assertTrue(calendar.isOpen(utc(2024, 1, 13, 23, 59)));
+    }
+
+    @Test
+    public void neverOpenReturnsMinusOne() {
+        BusinessCalendar calendar = BusinessCalendar.weekly(UTC, 0, 9, 17, null);
+
+        assertFalse(calendar.isOpen(utc(2024, 1, 10, 12, 0)));
+        assertEquals(-1, calendar.nextOpen(utc(2024, 1, 10, 12, 0)));
+    }
+
+    @Test
+    public void opensAtLocalTimeAfterSpringForward() {
+        // Clocks went from 02:00 EST to 03:00 EDT on 2024-03-10
+        BusinessCalendar calendar = BusinessCalendar.weekly(NEW_YORK, EVERY_DAY, 9, 17, null);
+
+        long opening = calendar.nextOpen(at(NEW_YORK, 2024, 3, 10, 1, 0));
+
+        assertEquals(at(NEW_YORK, 2024, 3, 10, 9, 0), opening);
+        assertEquals(utc(2024, 3, 10, 13, 0), opening);
+    }
+
+    @Test
+    public void opensAtLocalTimeAfterFallBack() {
+        // Clocks went from 02:00 EDT back to 01:00 EST on 2024-11-03
+        BusinessCalendar calendar = BusinessCalendar.weekly(NEW_YORK, EVERY_DAY, 9, 17, null);
+
+        long opening = calendar.nextOpen(at(NEW_YORK, 2024, 11, 2, 18, 0));
+
+        assertEquals(at(NEW_YORK, 2024, 11, 3, 9, 0), opening);
+        assertEquals(utc(2024, 11, 3, 14, 0), opening);
+    }
+
+    @Test
+    public void hoursFollowLocalTimeAcrossDst() {
+        BusinessCalendar calendar = BusinessCalendar.weekly(NEW_YORK, EVERY_DAY, 9, 17, null);
+
+        // 16:30 local is open on both sides of the change, 17:00 local is not
+        assertTrue(calendar.isOpen(at(NEW_YORK, 2024, 3, 9, 16, 30)));
+        assertTrue(calendar.isOpen(at(NEW_YORK, 2024, 3, 11, 16, 30)));
+        assertFalse(calendar.isOpen(at(NEW_YORK, 2024, 3, 11, 17, 0)));
+    }
+
+    @Test
+    public void holidayClosesWholeDay() {
+        BusinessCalendar calendar = BusinessCalendar.weekly(UTC, WEEKDAYS, 9, 17,
+            Collections.singletonList("2024-01-15"));
+
+        assertFalse(calendar.isOpen(utc(2024, 1, 15, 10, 0)));
+        assertEquals(utc(2024, 1, 16, 9, 0), calendar.nextOpen(utc(2024, 1, 15, 10, 0)));
+        // Friday evening skips the weekend and the Monday holiday
+        assertEquals(utc(2024, 1, 16, 9, 0), calendar.nextOpen(utc(2024, 1, 12, 18, 0)));
+    }
+
+    @Test
+    public void consecutiveHolidaysAreSkipped() {
+        BusinessCalendar calendar = BusinessCalendar.weekly(UTC, WEEKDAYS, 9, 17,
+            Arrays.asList("2024-12-25", "2024-12-26", " 2024-12-27 "));
+
+        assertEquals(utc(2024, 12, 30, 9, 0), calendar.nextOpen(utc(2024, 12, 24, 17, 0)));
+    }
+
+    @Test
+    public void holidayUsesLocalDate() {
+        TimeZone kolkata = TimeZone.getTimeZone("Asia/Kolkata");
+        BusinessCalendar calendar = BusinessCalendar.weekly(kolkata, EVERY_DAY, 0, 0,
+            Collections.singletonList("2024-01-26"));
+
+        // 2024-01-25 20:00 UTC is already the 26th in India
+        assertFalse(calendar.isOpen(utc(2024, 1, 25, 20, 0)));
+        assertEquals(at(kolkata, 2024, 1, 27, 0, 0), calendar.nextOpen(utc(2024, 1, 25, 20, 0)));
+    }
+
+    @Test
+    public void malformedHolidaysAreIgnored() {
+        BusinessCalendar calendar = BusinessCalendar.weekly(UTC, WEEKDAYS, 9, 17,
+            Arrays.asList("2024-01", "not-a-date", "2024-xx-10"));
+
+        assertTrue(calendar.isOpen(utc(2024, 1, 10, 12, 0)));
+    }
+}
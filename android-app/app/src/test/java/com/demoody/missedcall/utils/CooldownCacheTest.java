@@ -0,0 +1,99 @@
+package com.demoody.missedcall.utils;
+
+import com.demoody.missedcall.db.RecentCaller;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CooldownCacheTest {
+
+    private static final long COOLDOWN = 60_000L;
+
+    private static RecentCaller caller(long phoneKey, long callTime) {
+        RecentCaller caller = new RecentCaller();
+        caller.phoneKey = phoneKey;
+        caller.callTime = callTime;
+        return caller;
+    }
+
+    @Test
+    public void rejectsRepeatInsideWindow() {
+        CooldownCache cache = new CooldownCache();
+
+        assertTrue(cache.tryAcquire(1L, 1_000L, COOLDOWN));
+        assertFalse(cache.tryAcquire(1L, 1_000L + COOLDOWN - 1, COOLDOWN));
+        assertTrue(cache.tryAcquire(2L, 1_000L, COOLDOWN));
+    }
+
+    @Test
+    public void repeatDoesNotExtendWindow() {
+        CooldownCache cache = new CooldownCache();
+
+        assertTrue(cache.tryAcquire(1L, 0L, COOLDOWN));
+        assertFalse(cache.tryAcquire(1L, COOLDOWN / 2, COOLDOWN));
+        assertTrue(cache.tryAcquire(1L, COOLDOWN, COOLDOWN));
+    }
+
+    @Test
+    public void windowFollowsCurrentCooldown() {
+        CooldownCache cache = new CooldownCache();
+
+        assertTrue(cache.tryAcquire(1L, 0L, COOLDOWN));
+        // Shortening the cooldown setting expires the entry early
+        assertTrue(cache.tryAcquire(1L, COOLDOWN / 2, COOLDOWN / 4));
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsedEntry() {
+        CooldownCache cache = new CooldownCache(2);
+
+        cache.tryAcquire(1L, 0L, COOLDOWN);
+        cache.tryAcquire(2L, 0L, COOLDOWN);
+        // A rejected lookup still counts as a use, leaving key 2 the eldest
+        assertFalse(cache.tryAcquire(1L, 1L, COOLDOWN));
+        cache.tryAcquire(3L, 0L, COOLDOWN);
+
+        assertFalse(cache.tryAcquire(1L, 2L, COOLDOWN));
+        assertTrue(cache.tryAcquire(2L, 2L, COOLDOWN));
+    }
+
+    @Test
+    public void warmSeedsWithoutOverwritingNewerEntries() {
+        CooldownCache cache = new CooldownCache();
+        assertFalse(cache.isWarm());
+
+        assertTrue(cache.tryAcquire(1L, 10 * COOLDOWN, COOLDOWN));
+        cache.warm(Arrays.asList(caller(1L, 0L), caller(2L, 10 * COOLDOWN)));
+
+        assertTrue(cache.isWarm());
+        assertFalse(cache.tryAcquire(1L, 10 * COOLDOWN + 1, COOLDOWN));
+        assertFalse(cache.tryAcquire(2L, 10 * COOLDOWN + 1, COOLDOWN));
+    }
+
+    @Test
+    public void releaseClearsOnlyTheMatchingCall() {
+        CooldownCache cache = new CooldownCache();
+
+        assertTrue(cache.tryAcquire(1L, 0L, COOLDOWN));
+        cache.release(1L, 0L);
+        assertTrue(cache.tryAcquire(1L, 1L, COOLDOWN));
+
+        // A stale release must not clear the newer entry
+        cache.release(1L, 0L);
+        assertFalse(cache.tryAcquire(1L, 2L, COOLDOWN));
+    }
+
+    @Test
+    public void warmWithNoCallersStillMarksWarm() {
+        CooldownCache cache = new CooldownCache();
+
+        cache.warm(Collections.<RecentCaller>emptyList());
+
+        assertTrue(cache.isWarm());
+    }
+}
@@ -0,0 +1,44 @@
+package com.demoody.missedcall.utils;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+public class MessageTemplateCacheTest {
+
+    private final MessageTemplateCache cache = new MessageTemplateCache();
+
+    @Test
+    public void reusesTemplateForSameVersion() {
+        MessageTemplate first = cache.get(1, "Hi {name}", "Acme", null);
+
+        assertSame(first, cache.get(1, "Hi {name}", "Acme", null));
+    }
+
+    @Test
+    public void recompilesWhenSourceChanges() {
+        MessageTemplate first = cache.get(1, "Hi {name}", "Acme", null);
+        MessageTemplate second = cache.get(1, "Hello {name}", "Acme", null);
+
+        assertNotSame(first, second);
+        assertEquals("Hello Bob", second.render("Bob", null));
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsedVersion() {
+        MessageTemplate oldest = cache.get(1, "v1", null, null);
+        MessageTemplate second = cache.get(2, "v2", null, null);
+        for (int version = 3; version <= MessageTemplateCache.MAX_VERSIONS; version++) {
+            cache.get(version, "v" + version, null, null);
+        }
+
+        // Touching version 1 makes version 2 the eldest
+        assertSame(oldest, cache.get(1, "v1", null, null));
+        cache.get(MessageTemplateCache.MAX_VERSIONS + 1, "new", null, null);
+
+        assertSame(oldest, cache.get(1, "v1", null, null));
+        assertNotSame(second, cache.get(2, "v2", null, null));
+    }
+}
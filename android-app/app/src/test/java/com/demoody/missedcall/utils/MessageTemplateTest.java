@@ -0,0 +1,97 @@
+package com.demoody.missedcall.utils;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class MessageTemplateTest {
+
+    private static String repeat(char c, int count) {
+        StringBuilder builder = new StringBuilder(count);
+        for (int i = 0; i < count; i++) {
+            builder.append(c);
+        }
+        return builder.toString();
+    }
+
+    @Test
+    public void rendersPerCallPlaceholders() {
+        MessageTemplate template = MessageTemplate.compile(
+            "Hi {name}, sorry we missed you at {time}. {business_name}", "Acme", null);
+
+        assertTrue(template.usesName());
+        assertTrue(template.usesTime());
+        assertEquals("Hi Bob, sorry we missed you at 10:30. Acme", template.render("Bob", "10:30"));
+    }
+
+    @Test
+    public void foldsSettingsPlaceholdersAtCompileTime() {
+        MessageTemplate template = MessageTemplate.compile(
+            "{business_name} will call back: {callback_url}", "Acme", "https://example.com/cb");
+
+        assertFalse(template.usesName());
+        assertFalse(template.usesTime());
+        assertEquals("Acme will call back: https://example.com/cb", template.render("Bob", "10:30"));
+    }
+
+    @Test
+    public void literalTemplateRendersWithoutCopying() {
+        MessageTemplate template = MessageTemplate.compile("Thanks for calling", null, null);
+
+        assertSame(template.render("Bob", "10:30"), template.render(null, null));
+    }
+
+    @Test
+    public void missingValuesRenderEmpty() {
+        MessageTemplate template = MessageTemplate.compile("[{name}|{time}|{business_name}]", null, null);
+
+        assertEquals("[||]", template.render(null, null));
+    }
+
+    @Test
+    public void unknownAndUnclosedPlaceholdersStayLiteral() {
+        assertEquals("Hello {foo} Bob",
+            MessageTemplate.compile("Hello {foo} {name}", null, null).render("Bob", null));
+        assertEquals("Hello {name",
+            MessageTemplate.compile("Hello {name", null, null).render("Bob", null));
+    }
+
+    @Test
+    public void nullSourceCompilesToEmpty() {
+        MessageTemplate template = MessageTemplate.compile(null, null, null);
+
+        assertEquals("", template.getSource());
+        assertEquals("", template.render("Bob", "10:30"));
+    }
+
+    @Test
+    public void gsm7LengthCountsExtensionCharactersTwice() {
+        assertEquals(3, MessageTemplate.gsm7Length("abc"));
+        assertEquals(2, MessageTemplate.gsm7Length("\u20AC"));
+        assertEquals(-1, MessageTemplate.gsm7Length("\u0905"));
+    }
+
+    @Test
+    public void estimatesGsm7Segments() {
+        assertEquals(1, MessageTemplate.compile(repeat('a', 160), null, null).getEstimatedSegments());
+        assertEquals(2, MessageTemplate.compile(repeat('a', 161), null, null).getEstimatedSegments());
+
+        // The name budget counts towards the first segment
+        int literal = 160 - MessageTemplate.NAME_BUDGET;
+        assertEquals(1, MessageTemplate.compile(repeat('a', literal) + "{name}", null, null).getEstimatedSegments());
+        assertEquals(2, MessageTemplate.compile(repeat('a', literal + 1) + "{name}", null, null).getEstimatedSegments());
+    }
+
+    @Test
+    public void estimatesUcs2Segments() {
+        MessageTemplate single = MessageTemplate.compile(repeat('\u0905', 70), null, null);
+        MessageTemplate multipart = MessageTemplate.compile(repeat('\u0905', 71), null, null);
+
+        assertTrue(single.isUnicode());
+        assertEquals(1, single.getEstimatedSegments());
+        assertEquals(2, multipart.getEstimatedSegments());
+    }
+}
@@ -0,0 +1,67 @@
+package com.demoody.missedcall.utils;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class PhoneNumberNormalizerTest {
+
+    @Test
+    public void numericNumbersKeyOnDigitCountAndValue() {
+        assertEquals((1L << 60) | (12L << 56) | 919876543210L, PhoneNumberNormalizer.keyOf("+919876543210"));
+        assertEquals((5L << 56) | 12345L, PhoneNumberNormalizer.keyOf("12345"));
+        assertEquals((15L << 56) | 999999999999999L, PhoneNumberNormalizer.keyOf("999999999999999"));
+    }
+
+    @Test
+    public void plusPrefixAndLeadingZerosDoNotCollide() {
+        long plusZero = PhoneNumberNormalizer.keyOf("+0123");
+        long zero = PhoneNumberNormalizer.keyOf("0123");
+        long bare = PhoneNumberNormalizer.keyOf("123");
+        long plusBare = PhoneNumberNormalizer.keyOf("+123");
+
+        assertNotEquals(plusZero, zero);
+        assertNotEquals(plusZero, bare);
+        assertNotEquals(zero, bare);
+        assertNotEquals(bare, plusBare);
+        assertNotEquals(PhoneNumberNormalizer.keyOf("00123"), zero);
+    }
+
+    @Test
+    public void numericKeysStayNonNegative() {
+        assertTrue(PhoneNumberNormalizer.keyOf("+999999999999999") > 0);
+        assertTrue(PhoneNumberNormalizer.keyOf("0") > 0);
+    }
+
+    @Test
+    public void nonNumericNumbersHashIntoNegativeRange() {
+        assertTrue(PhoneNumberNormalizer.keyOf("VK-ACME") < 0);
+        assertTrue(PhoneNumberNormalizer.keyOf("*121#") < 0);
+        assertTrue(PhoneNumberNormalizer.keyOf("") < 0);
+        assertTrue(PhoneNumberNormalizer.keyOf("+") < 0);
+    }
+
+    @Test
+    public void tooManyDigitsHashIntoNegativeRange() {
+        String sixteenDigits = "1234567890123456";
+
+        long key = PhoneNumberNormalizer.keyOf(sixteenDigits);
+
+        assertTrue(key < 0);
+        assertEquals(key, PhoneNumberNormalizer.keyOf(sixteenDigits));
+    }
+
+    @Test
+    public void hashedKeysAreStableAndDistinct() {
+        assertEquals(PhoneNumberNormalizer.keyOf("VK-ACME"), PhoneNumberNormalizer.keyOf("VK-ACME"));
+        assertNotEquals(PhoneNumberNormalizer.keyOf("VK-ACME"), PhoneNumberNormalizer.keyOf("VK-ACMF"));
+    }
+
+    @Test
+    public void hashSetsOnlyTheSignBit() {
+        // FNV-1a of the empty string is the offset basis; only the sign bit is forced on
+        assertEquals(0xcbf29ce484222325L | Long.MIN_VALUE, PhoneNumberNormalizer.keyOf(""));
+    }
+}
@@ -89,6 +89,7 @@ return [
         'default_delay_minutes' => (int)($_ENV['DEFAULT_DELAY_MINUTES'] ?? 5),
         'max_retry_attempts' => (int)($_ENV['MAX_RETRY_ATTEMPTS'] ?? 3),
         'hours_start' => $_ENV['BUSINESS_HOURS_START'] ?? '09:00',
-        'hours_end' => $_ENV['BUSINESS_HOURS_END'] ?? '18:00'
+        'hours_end' => $_ENV['BUSINESS_HOURS_END'] ?? '18:00',
+        'max_batch_size' => (int)($_ENV['MAX_BATCH_SIZE'] ?? 100)
     ]
 ];
@@ -31,10 +31,14 @@ CREATE TABLE missed_calls (
     error_message TEXT,
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     sent_at TIMESTAMP NULL,
+    idempotency_key VARCHAR(64) NULL,
+    updated_at TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3) ON UPDATE CURRENT_TIMESTAMP(3),
     UNIQUE KEY unique_call (device_id, phone_number, call_time),
+    UNIQUE KEY unique_idempotency_key (device_id, idempotency_key),
     INDEX idx_device_phone (device_id, phone_number),
     INDEX idx_status (status),
     INDEX idx_call_time (call_time),
+    INDEX idx_device_updated (device_id, updated_at, id),
     FOREIGN KEY (device_id) REFERENCES devices(device_id) ON DELETE CASCADE
 );
 
@@ -44,7 +48,10 @@ CREATE TABLE blocked_numbers (
     phone_number VARCHAR(32) UNIQUE NOT NULL,
     reason ENUM('USER_OPTOUT','ADMIN_BLOCK','SPAM') DEFAULT 'USER_OPTOUT',
     blocked_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-    INDEX idx_phone_number (phone_number)
+    unblocked_at TIMESTAMP NULL,
+    updated_at TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3) ON UPDATE CURRENT_TIMESTAMP(3),
+    INDEX idx_phone_number (phone_number),
+    INDEX idx_updated_at (updated_at, id)
 );
 
 -- Message templates table
@@ -0,0 +1,8 @@
+-- Idempotency keys for missed call submissions
+-- Apply to databases created from database.sql before this column existed
+
+USE missed_call;
+
+ALTER TABLE missed_calls
+    ADD COLUMN idempotency_key VARCHAR(64) NULL AFTER sent_at,
+    ADD UNIQUE KEY unique_idempotency_key (device_id, idempotency_key);
@@ -0,0 +1,9 @@
+-- Change tracking for the opt-out list, used by GET /api/v1/blocked_numbers
+-- Unblocked numbers become tombstones (unblocked_at set) instead of being deleted
+
+USE missed_call;
+
+ALTER TABLE blocked_numbers
+    ADD COLUMN unblocked_at TIMESTAMP NULL AFTER blocked_at,
+    ADD COLUMN updated_at TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3) ON UPDATE CURRENT_TIMESTAMP(3) AFTER unblocked_at,
+    ADD INDEX idx_updated_at (updated_at, id);
@@ -0,0 +1,7 @@
+-- Change tracking for missed calls, used by GET /api/v1/logs?since=...
+
+USE missed_call;
+
+ALTER TABLE missed_calls
+    ADD COLUMN updated_at TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3) ON UPDATE CURRENT_TIMESTAMP(3) AFTER idempotency_key,
+    ADD INDEX idx_device_updated (device_id, updated_at, id);
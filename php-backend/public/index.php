@@ -39,6 +39,15 @@ try {
             }
             break;
 
+        case 'api/v1/missed_calls/batch':
+            if ($requestMethod === 'POST') {
+                $response = $controller->logMissedCallsBatch();
+            } else {
+                $response = ['success' => false, 'error' => 'Method not allowed'];
+                http_response_code(405);
+            }
+            break;
+
         case 'api/v1/send_scheduled':
             if ($requestMethod === 'POST') {
                 $response = $controller->sendScheduledMessages();
@@ -75,6 +84,15 @@ try {
             }
             break;
 
+        case 'api/v1/blocked_numbers':
+            if ($requestMethod === 'GET') {
+                $response = $controller->getBlockedNumbers();
+            } else {
+                $response = ['success' => false, 'error' => 'Method not allowed'];
+                http_response_code(405);
+            }
+            break;
+
         case 'api/v1/health':
             $response = [
                 'success' => true,
@@ -95,10 +113,12 @@ try {
                     'version' => '1.0.0',
                     'endpoints' => [
                         'POST /api/v1/missed_calls' => 'Log a missed call',
+                        'POST /api/v1/missed_calls/batch' => 'Log a batch of missed calls',
                         'POST /api/v1/send_scheduled' => 'Process scheduled messages',
                         'POST /api/v1/register_device' => 'Register a device',
                         'GET /api/v1/logs' => 'Get call logs',
                         'POST /api/v1/opt_out' => 'Opt out a phone number',
+                        'GET /api/v1/blocked_numbers' => 'Sync changes to the opt-out list',
                         'GET /api/v1/health' => 'Health check'
                     ]
                 ]
@@ -10,6 +10,9 @@ use MissedCall\Services\RateLimitService;
 
 class MissedCallController
 {
+    private const MAX_DECODED_BODY_BYTES = 4194304;
+    private const MAX_IDEMPOTENCY_KEY_LENGTH = 64;
+
     private $missedCallModel;
     private $deviceModel;
     private $blockedNumberModel;
@@ -31,97 +34,194 @@ class MissedCallController
     {
         try {
             $input = $this->getJsonInput();
-            
-            // Validate required fields
-            $required = ['device_id', 'phone_number', 'call_time'];
-            foreach ($required as $field) {
-                if (empty($input[$field])) {
-                    return $this->errorResponse("Missing required field: $field", 400);
-                }
+
+            // Single calls may carry the key as a header instead of a field
+            if (empty($input['idempotency_key']) && !empty($_SERVER['HTTP_IDEMPOTENCY_KEY'])) {
+                $input['idempotency_key'] = $_SERVER['HTTP_IDEMPOTENCY_KEY'];
             }
 
             // Authenticate device
-            $device = $this->deviceModel->findByDeviceId($input['device_id']);
-            if (!$device) {
+            if (!empty($input['device_id']) && !$this->deviceModel->findByDeviceId($input['device_id'])) {
                 return $this->errorResponse('Device not registered', 401);
             }
 
-            // Check rate limits
-            if (!$this->rateLimitService->checkDeviceLimit($input['device_id'])) {
-                return $this->errorResponse('Device rate limit exceeded', 429);
-            }
+            $result = $this->processMissedCall($input);
 
-            if (!$this->rateLimitService->checkPhoneLimit($input['phone_number'])) {
-                return $this->errorResponse('Phone number rate limit exceeded', 429);
+            if (!$result['success']) {
+                return $this->errorResponse($result['error'], $result['code']);
             }
 
-            // Check if number is blocked
-            if ($this->blockedNumberModel->isBlocked($input['phone_number'])) {
-                return $this->successResponse([
-                    'message' => 'Number is blocked, message not scheduled',
-                    'status' => 'BLOCKED'
-                ]);
-            }
+            return $this->successResponse($result['data']);
+
+        } catch (\Exception $e) {
+            error_log('Error in logMissedCall: ' . $e->getMessage());
+            return $this->errorResponse('Internal server error', 500);
+        }
+    }
 
-            // Validate phone number
-            if (!$this->smsService->validatePhoneNumber($input['phone_number'])) {
-                return $this->errorResponse('Invalid phone number format', 400);
+    public function logMissedCallsBatch(): array
+    {
+        try {
+            $input = $this->getJsonInput();
+
+            if (empty($input['device_id'])) {
+                return $this->errorResponse('Missing required field: device_id', 400);
             }
 
-            // Check for duplicate within time window
-            $existing = $this->missedCallModel->findByDeviceAndPhone(
-                $input['device_id'], 
-                $input['phone_number'], 
-                3600 // 1 hour window
-            );
-
-            if ($existing && $existing['status'] !== 'FAILED') {
-                return $this->successResponse([
-                    'message' => 'Duplicate call detected, message not scheduled',
-                    'existing_id' => $existing['id'],
-                    'status' => $existing['status']
-                ]);
+            if (empty($input['calls']) || !is_array($input['calls'])) {
+                return $this->errorResponse('Missing required field: calls', 400);
             }
 
-            // Calculate scheduled time
-            $delayMinutes = $input['delay_minutes'] ?? $this->config['business']['default_delay_minutes'];
-            $callTimestamp = is_numeric($input['call_time']) ? $input['call_time'] / 1000 : strtotime($input['call_time']);
-            $scheduledTime = date('Y-m-d H:i:s', $callTimestamp + ($delayMinutes * 60));
+            $maxBatchSize = $this->config['business']['max_batch_size'] ?? 100;
+            if (count($input['calls']) > $maxBatchSize) {
+                return $this->errorResponse("Batch too large, maximum is $maxBatchSize calls", 413);
+            }
 
-            // Get message template
-            $messageText = $input['message_text'] ?? $this->getDefaultMessage();
+            // Authenticate device once for the whole batch
+            if (!$this->deviceModel->findByDeviceId($input['device_id'])) {
+                return $this->errorResponse('Device not registered', 401);
+            }
 
-            // Create missed call record
-            $callData = [
-                'device_id' => $input['device_id'],
-                'phone_number' => $input['phone_number'],
-                'call_time' => date('Y-m-d H:i:s', is_numeric($input['call_time']) ? $input['call_time'] / 1000 : strtotime($input['call_time'])),
-                'scheduled_time' => $scheduledTime,
-                'message_text' => $messageText
-            ];
+            $results = [];
+            foreach (array_values($input['calls']) as $index => $call) {
+                $call = is_array($call) ? $call : [];
+                $call['device_id'] = $input['device_id'];
 
-            $callId = $this->missedCallModel->create($callData);
-            
-            if (!$callId) {
-                return $this->errorResponse('Failed to create missed call record', 500);
+                $result = $this->processMissedCall($call);
+                $results[] = [
+                    'index' => $index,
+                    'success' => $result['success'],
+                    'status' => $result['data']['status'] ?? ($result['success'] ? 'PENDING' : 'FAILED'),
+                    'call_id' => $result['data']['call_id'] ?? $result['data']['existing_id'] ?? null,
+                    'error' => $result['error'] ?? null,
+                    'code' => $result['code'] ?? null
+                ];
             }
 
-            // Update device activity
-            $this->deviceModel->updateLastActivity($input['device_id']);
-
             return $this->successResponse([
-                'message' => 'Missed call logged successfully',
-                'call_id' => $callId,
-                'scheduled_time' => $scheduledTime,
-                'delay_minutes' => $delayMinutes
+                'message' => 'Batch processed',
+                'processed_count' => count($results),
+                'results' => $results
             ]);
 
         } catch (\Exception $e) {
-            error_log('Error in logMissedCall: ' . $e->getMessage());
+            error_log('Error in logMissedCallsBatch: ' . $e->getMessage());
             return $this->errorResponse('Internal server error', 500);
         }
     }
 
+    /**
+     * Validate and store a single missed call. Shared by the single and batch
+     * endpoints; returns a result array instead of setting the HTTP status so
+     * the batch endpoint can report each item separately.
+     */
+    private function processMissedCall(array $input): array
+    {
+        // Validate required fields
+        $required = ['device_id', 'phone_number', 'call_time'];
+        foreach ($required as $field) {
+            if (empty($input[$field])) {
+                return $this->itemError("Missing required field: $field", 400);
+            }
+        }
+
+        // A repeated key is a client retry: answer with the original outcome,
+        // before rate limits so replays never count against the device
+        $idempotencyKey = $input['idempotency_key'] ?? null;
+        if ($idempotencyKey !== null && $idempotencyKey !== '') {
+            if (!is_string($idempotencyKey) || strlen($idempotencyKey) > self::MAX_IDEMPOTENCY_KEY_LENGTH) {
+                return $this->itemError('Invalid idempotency_key', 400);
+            }
+
+            $existing = $this->missedCallModel->findByIdempotencyKey($input['device_id'], $idempotencyKey);
+            if ($existing) {
+                return $this->replayedResult($existing);
+            }
+        } else {
+            $idempotencyKey = null;
+        }
+
+        // Check rate limits
+        if (!$this->rateLimitService->checkDeviceLimit($input['device_id'])) {
+            return $this->itemError('Device rate limit exceeded', 429);
+        }
+
+        if (!$this->rateLimitService->checkPhoneLimit($input['phone_number'])) {
+            return $this->itemError('Phone number rate limit exceeded', 429);
+        }
+
+        // Check if number is blocked
+        if ($this->blockedNumberModel->isBlocked($input['phone_number'])) {
+            return $this->itemSuccess([
+                'message' => 'Number is blocked, message not scheduled',
+                'status' => 'BLOCKED'
+            ]);
+        }
+
+        // Validate phone number
+        if (!$this->smsService->validatePhoneNumber($input['phone_number'])) {
+            return $this->itemError('Invalid phone number format', 400);
+        }
+
+        // Check for duplicate within time window
+        $existing = $this->missedCallModel->findByDeviceAndPhone(
+            $input['device_id'], 
+            $input['phone_number'], 
+            3600 // 1 hour window
+        );
+
+        if ($existing && $existing['status'] !== 'FAILED') {
+            return $this->itemSuccess([
+                'message' => 'Duplicate call detected, message not scheduled',
+                'existing_id' => $existing['id'],
+                'status' => $existing['status']
+            ]);
+        }
+
+        // Calculate scheduled time
+        $delayMinutes = $input['delay_minutes'] ?? $this->config['business']['default_delay_minutes'];
+        $callTimestamp = is_numeric($input['call_time']) ? $input['call_time'] / 1000 : strtotime($input['call_time']);
+        $scheduledTime = date('Y-m-d H:i:s', $callTimestamp + ($delayMinutes * 60));
+
+        // Get message template
+        $messageText = $input['message_text'] ?? $this->getDefaultMessage();
+
+        // Create missed call record
+        $callData = [
+            'device_id' => $input['device_id'],
+            'phone_number' => $input['phone_number'],
+            'call_time' => date('Y-m-d H:i:s', $callTimestamp),
+            'scheduled_time' => $scheduledTime,
+            'message_text' => $messageText,
+            'idempotency_key' => $idempotencyKey
+        ];
+
+        $callId = $this->missedCallModel->create($callData);
+
+        // A concurrent request with the same key won the insert
+        if (!$callId && $idempotencyKey !== null) {
+            $existing = $this->missedCallModel->findByIdempotencyKey($input['device_id'], $idempotencyKey);
+            if ($existing) {
+                return $this->replayedResult($existing);
+            }
+        }
+        
+        if (!$callId) {
+            return $this->itemError('Failed to create missed call record', 500);
+        }
+
+        // Update device activity
+        $this->deviceModel->updateLastActivity($input['device_id']);
+
+        return $this->itemSuccess([
+            'message' => 'Missed call logged successfully',
+            'call_id' => $callId,
+            'status' => 'PENDING',
+            'scheduled_time' => $scheduledTime,
+            'delay_minutes' => $delayMinutes
+        ]);
+    }
+
     public function sendScheduledMessages(): array
     {
         try {
@@ -246,6 +346,11 @@ class MissedCallController
                 return $this->errorResponse('Device not found', 404);
             }
 
+            // A since parameter (empty for the first sync) selects the delta feed
+            if (isset($_GET['since'])) {
+                return $this->getLogChanges($deviceId, $_GET['since'], $limit);
+            }
+
             $logs = $this->missedCallModel->getCallsByDevice($deviceId, $page, $limit);
             $stats = $this->missedCallModel->getStats($deviceId);
 
@@ -264,6 +369,87 @@ class MissedCallController
         }
     }
 
+    /**
+     * Calls changed since the cursor, for devices reconciling delivery
+     * status. Stats are left out to keep each page small.
+     */
+    private function getLogChanges(string $deviceId, string $since, int $limit): array
+    {
+        $cursor = $this->decodeCursor($since);
+        if ($cursor === false) {
+            return $this->errorResponse('Invalid since cursor', 400);
+        }
+
+        // One extra row tells us whether another page follows
+        $rows = $this->missedCallModel->getChangesByDevice($deviceId, $cursor[0], $cursor[1], $limit + 1);
+        $hasMore = count($rows) > $limit;
+        $rows = array_slice($rows, 0, $limit);
+
+        $last = end($rows);
+        $nextCursor = $last
+            ? $this->encodeCursor($last['updated_at'], (int)$last['id'])
+            : ($since !== '' ? $since : null);
+
+        return $this->successResponse([
+            'logs' => $rows,
+            'next_cursor' => $nextCursor,
+            'has_more' => $hasMore
+        ]);
+    }
+
+    /**
+     * Delta feed of the opt-out list for devices' local copies. The cursor
+     * is opaque to clients; it encodes the last row's (updated_at, id).
+     */
+    public function getBlockedNumbers(): array
+    {
+        try {
+            $deviceId = $_GET['device_id'] ?? null;
+            $limit = max(1, min((int)($_GET['limit'] ?? 500), 1000));
+
+            if (!$deviceId) {
+                return $this->errorResponse('Missing device_id parameter', 400);
+            }
+
+            if (!$this->deviceModel->findByDeviceId($deviceId)) {
+                return $this->errorResponse('Device not registered', 401);
+            }
+
+            $since = $this->decodeCursor($_GET['since'] ?? null);
+            if ($since === false) {
+                return $this->errorResponse('Invalid since cursor', 400);
+            }
+
+            // One extra row tells us whether another page follows
+            $rows = $this->blockedNumberModel->getChangesSince($since[0], $since[1], $limit + 1);
+            $hasMore = count($rows) > $limit;
+            $rows = array_slice($rows, 0, $limit);
+
+            $numbers = [];
+            foreach ($rows as $row) {
+                $numbers[] = [
+                    'phone_number' => $row['phone_number'],
+                    'blocked' => $row['unblocked_at'] === null
+                ];
+            }
+
+            $last = end($rows);
+            $nextCursor = $last
+                ? $this->encodeCursor($last['updated_at'], (int)$last['id'])
+                : ($_GET['since'] ?? null);
+
+            return $this->successResponse([
+                'numbers' => $numbers,
+                'next_cursor' => $nextCursor,
+                'has_more' => $hasMore
+            ]);
+
+        } catch (\Exception $e) {
+            error_log('Error in getBlockedNumbers: ' . $e->getMessage());
+            return $this->errorResponse('Internal server error', 500);
+        }
+    }
+
     public function handleOptOut(): array
     {
         try {
@@ -287,10 +473,50 @@ class MissedCallController
 
     private function getJsonInput(): array
     {
-        $input = json_decode(file_get_contents('php://input'), true);
+        $body = file_get_contents('php://input');
+
+        // The Android client gzips larger request bodies
+        $encoding = strtolower($_SERVER['HTTP_CONTENT_ENCODING'] ?? '');
+        if ($encoding === 'gzip' && $body !== false && $body !== '') {
+            // Cap the inflated size so a small body cannot expand without bound
+            $body = gzdecode($body, self::MAX_DECODED_BODY_BYTES);
+            if ($body === false) {
+                return [];
+            }
+        }
+
+        $input = json_decode($body, true);
         return $input ?: [];
     }
 
+    private function encodeCursor(string $updatedAt, int $id): string
+    {
+        return rtrim(strtr(base64_encode($updatedAt . '|' . $id), '+/', '-_'), '=');
+    }
+
+    /**
+     * @return array|false [updated_at, id], [null, null] for no cursor, or
+     *                     false if the cursor is malformed
+     */
+    private function decodeCursor(?string $cursor)
+    {
+        if ($cursor === null || $cursor === '') {
+            return [null, null];
+        }
+
+        $decoded = base64_decode(strtr($cursor, '-_', '+/'), true);
+        if ($decoded === false || strpos($decoded, '|') === false) {
+            return false;
+        }
+
+        [$updatedAt, $id] = explode('|', $decoded, 2);
+        if (!ctype_digit($id) || strtotime($updatedAt) === false) {
+            return false;
+        }
+
+        return [$updatedAt, (int)$id];
+    }
+
     private function getDefaultMessage(): string
     {
         return "Hello! We missed your call. We're sorry we couldn't pick up. Reply CALLBACK or visit our website and we'll get back to you shortly. Reply STOP to opt out.";
@@ -312,6 +538,27 @@ class MissedCallController
         return $tomorrow . ' ' . $config['hours_start'] . ':00';
     }
 
+    private function replayedResult(array $existing): array
+    {
+        return $this->itemSuccess([
+            'message' => 'Call already logged',
+            'call_id' => (int)$existing['id'],
+            'status' => $existing['status'],
+            'scheduled_time' => $existing['scheduled_time'],
+            'replayed' => true
+        ]);
+    }
+
+    private function itemSuccess(array $data): array
+    {
+        return ['success' => true, 'code' => 200, 'data' => $data];
+    }
+
+    private function itemError(string $message, int $code): array
+    {
+        return ['success' => false, 'code' => $code, 'error' => $message];
+    }
+
     private function successResponse(array $data, int $code = 200): array
     {
         http_response_code($code);
@@ -15,7 +15,7 @@ class BlockedNumber
 
     public function isBlocked(string $phoneNumber): bool
     {
-        $sql = "SELECT COUNT(*) FROM blocked_numbers WHERE phone_number = :phone_number";
+        $sql = "SELECT COUNT(*) FROM blocked_numbers WHERE phone_number = :phone_number AND unblocked_at IS NULL";
         $stmt = $this->db->prepare($sql);
         $stmt->execute([':phone_number' => $phoneNumber]);
         
@@ -28,7 +28,8 @@ class BlockedNumber
                 VALUES (:phone_number, :reason)
                 ON DUPLICATE KEY UPDATE 
                 reason = VALUES(reason),
-                blocked_at = CURRENT_TIMESTAMP";
+                blocked_at = CURRENT_TIMESTAMP,
+                unblocked_at = NULL";
         
         $stmt = $this->db->prepare($sql);
         return $stmt->execute([
@@ -37,9 +38,14 @@ class BlockedNumber
         ]);
     }
 
+    /**
+     * Unblocking keeps the row as a tombstone so devices syncing with
+     * getChangesSince() learn about the removal.
+     */
     public function unblock(string $phoneNumber): bool
     {
-        $sql = "DELETE FROM blocked_numbers WHERE phone_number = :phone_number";
+        $sql = "UPDATE blocked_numbers SET unblocked_at = CURRENT_TIMESTAMP 
+                WHERE phone_number = :phone_number AND unblocked_at IS NULL";
         $stmt = $this->db->prepare($sql);
         
         return $stmt->execute([':phone_number' => $phoneNumber]);
@@ -50,6 +56,7 @@ class BlockedNumber
         $offset = ($page - 1) * $limit;
         
         $sql = "SELECT * FROM blocked_numbers 
+                WHERE unblocked_at IS NULL 
                 ORDER BY blocked_at DESC 
                 LIMIT :limit OFFSET :offset";
         
@@ -60,4 +67,32 @@ class BlockedNumber
         
         return $stmt->fetchAll();
     }
+
+    /**
+     * Rows changed after the ($updatedAt, $id) position, oldest first. Pass
+     * nulls to start from the beginning.
+     */
+    public function getChangesSince(?string $updatedAt, ?int $id, int $limit): array
+    {
+        if ($updatedAt === null) {
+            $sql = "SELECT id, phone_number, unblocked_at, updated_at FROM blocked_numbers 
+                    ORDER BY updated_at, id 
+                    LIMIT :limit";
+            $stmt = $this->db->prepare($sql);
+        } else {
+            $sql = "SELECT id, phone_number, unblocked_at, updated_at FROM blocked_numbers 
+                    WHERE updated_at > :updated_at 
+                    OR (updated_at = :updated_at_tie AND id > :id) 
+                    ORDER BY updated_at, id 
+                    LIMIT :limit";
+            $stmt = $this->db->prepare($sql);
+            $stmt->bindValue(':updated_at', $updatedAt);
+            $stmt->bindValue(':updated_at_tie', $updatedAt);
+            $stmt->bindValue(':id', $id, \PDO::PARAM_INT);
+        }
+        $stmt->bindValue(':limit', $limit, \PDO::PARAM_INT);
+        $stmt->execute();
+        
+        return $stmt->fetchAll();
+    }
 }
\ No newline at end of file
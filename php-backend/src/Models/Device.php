@@ -19,6 +19,7 @@ class Device
                 VALUES (:device_id, :device_name, :api_token)
                 ON DUPLICATE KEY UPDATE 
                 device_name = VALUES(device_name),
+                api_token = VALUES(api_token),
                 updated_at = CURRENT_TIMESTAMP";
         
         try {
@@ -16,8 +16,8 @@ class MissedCall
 
     public function create(array $data): ?int
     {
-        $sql = "INSERT INTO missed_calls (device_id, phone_number, call_time, scheduled_time, message_text) 
-                VALUES (:device_id, :phone_number, :call_time, :scheduled_time, :message_text)";
+        $sql = "INSERT INTO missed_calls (device_id, phone_number, call_time, scheduled_time, message_text, idempotency_key) 
+                VALUES (:device_id, :phone_number, :call_time, :scheduled_time, :message_text, :idempotency_key)";
         
         try {
             $stmt = $this->db->prepare($sql);
@@ -26,7 +26,8 @@ class MissedCall
                 ':phone_number' => $data['phone_number'],
                 ':call_time' => $data['call_time'],
                 ':scheduled_time' => $data['scheduled_time'] ?? null,
-                ':message_text' => $data['message_text'] ?? null
+                ':message_text' => $data['message_text'] ?? null,
+                ':idempotency_key' => $data['idempotency_key'] ?? null
             ]);
             
             return $result ? (int)$this->db->lastInsertId() : null;
@@ -49,6 +50,22 @@ class MissedCall
         return $result ?: null;
     }
 
+    public function findByIdempotencyKey(string $deviceId, string $idempotencyKey): ?array
+    {
+        $sql = "SELECT * FROM missed_calls 
+                WHERE device_id = :device_id 
+                AND idempotency_key = :idempotency_key 
+                LIMIT 1";
+        $stmt = $this->db->prepare($sql);
+        $stmt->execute([
+            ':device_id' => $deviceId,
+            ':idempotency_key' => $idempotencyKey
+        ]);
+        
+        $result = $stmt->fetch();
+        return $result ?: null;
+    }
+
     public function findByDeviceAndPhone(string $deviceId, string $phoneNumber, int $timeWindow = 3600): ?array
     {
         $sql = "SELECT * FROM missed_calls 
@@ -132,6 +149,41 @@ class MissedCall
         return $stmt->fetchAll();
     }
 
+    /**
+     * The device's calls changed after the ($updatedAt, $id) position,
+     * oldest change first, with only the columns devices reconcile. Pass
+     * nulls to start from the beginning.
+     */
+    public function getChangesByDevice(string $deviceId, ?string $updatedAt, ?int $id, int $limit): array
+    {
+        $columns = "id, phone_number, status, provider_msg_id, attempt_count, error_message, 
+                    idempotency_key, updated_at, 
+                    CAST(UNIX_TIMESTAMP(sent_at) * 1000 AS UNSIGNED) AS sent_at_ms";
+
+        if ($updatedAt === null) {
+            $sql = "SELECT $columns FROM missed_calls 
+                    WHERE device_id = :device_id 
+                    ORDER BY updated_at, id 
+                    LIMIT :limit";
+            $stmt = $this->db->prepare($sql);
+        } else {
+            $sql = "SELECT $columns FROM missed_calls 
+                    WHERE device_id = :device_id 
+                    AND (updated_at > :updated_at OR (updated_at = :updated_at_tie AND id > :id)) 
+                    ORDER BY updated_at, id 
+                    LIMIT :limit";
+            $stmt = $this->db->prepare($sql);
+            $stmt->bindValue(':updated_at', $updatedAt);
+            $stmt->bindValue(':updated_at_tie', $updatedAt);
+            $stmt->bindValue(':id', $id, PDO::PARAM_INT);
+        }
+        $stmt->bindValue(':device_id', $deviceId);
+        $stmt->bindValue(':limit', $limit, PDO::PARAM_INT);
+        $stmt->execute();
+        
+        return $stmt->fetchAll();
+    }
+
     public function getStats(string $deviceId = null): array
     {
         $whereClause = $deviceId ? "WHERE device_id = :device_id" : "";